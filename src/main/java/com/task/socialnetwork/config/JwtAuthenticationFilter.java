@@ -1,15 +1,22 @@
 package com.task.socialnetwork.config;
 
+import com.task.socialnetwork.model.CustomUserDetails;
+import com.task.socialnetwork.model.Role;
+import com.task.socialnetwork.model.TokenClaims;
+import com.task.socialnetwork.model.User;
 import com.task.socialnetwork.service.JwtService;
+import com.task.socialnetwork.service.PrincipalCache;
+import com.task.socialnetwork.service.TokenVersionRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,17 +25,25 @@ import org.springframework.web.filter.OncePerRequestFilter;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   private final JwtService jwtService;
-  private final UserDetailsService userDetailsService;
+  private final PrincipalCache principalCache;
+  private final TokenVersionRegistry tokenVersionRegistry;
+  private final boolean stateless;
 
   /**
    * Constructor to inject dependencies.
    *
-   * @param jwtService         Service for handling JWT operations.
-   * @param userDetailsService Service for loading user details.
+   * @param jwtService           Service for handling JWT operations.
+   * @param principalCache       Cache of recently loaded user details.
+   * @param tokenVersionRegistry In-memory token versions used to revoke stateless tokens.
+   * @param stateless            Whether principals are built from the token claims alone.
    */
-  public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+  public JwtAuthenticationFilter(JwtService jwtService, PrincipalCache principalCache,
+                                 TokenVersionRegistry tokenVersionRegistry,
+                                 @Value("${jwt.stateless}") boolean stateless) {
     this.jwtService = jwtService;
-    this.userDetailsService = userDetailsService;
+    this.principalCache = principalCache;
+    this.tokenVersionRegistry = tokenVersionRegistry;
+    this.stateless = stateless;
   }
 
   /**
@@ -63,16 +78,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     // Extract the token from the Authorization header (removing the "Bearer " prefix)
     final String token = authHeader.substring(7);
 
-    // Use the JwtService to extract the username from the token
-    final String username = jwtService.extractUsername(token);
+    // Parse and verify the token once; invalid or expired tokens yield null
+    final TokenClaims claims = jwtService.parseToken(token);
 
-    // Check if the username is valid and there's no existing authentication in the SecurityContext
-    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-      // Load user details from the database or another source
-      UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+    // Check if the token is valid and there's no existing authentication in the SecurityContext
+    if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+      UserDetails userDetails = resolvePrincipal(claims);
 
-      // Validate the token against the loaded user details
-      if (jwtService.validateToken(token, userDetails)) {
+      // Validate the token against the resolved user details
+      if (userDetails != null && jwtService.validateToken(claims, userDetails)) {
         // Create an authentication token with the user's details and granted authorities
         UsernamePasswordAuthenticationToken authenticationToken =
             new UsernamePasswordAuthenticationToken(
@@ -89,4 +103,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     // Proceed with the rest of the filter chain
     filterChain.doFilter(request, response);
   }
+
+  /**
+   * Builds the principal from the claims alone in stateless mode, otherwise loads the user
+   * (from the cache when this user was seen recently).
+   *
+   * @param claims The verified token claims.
+   * @return The user details, or null if the token was revoked or the user no longer exists.
+   */
+  private UserDetails resolvePrincipal(TokenClaims claims) {
+    if (stateless && claims.getUserId() != null && claims.getTokenVersion() != null
+        && claims.getRole() != null) {
+      int currentVersion = tokenVersionRegistry.currentVersion(claims.getUserId());
+      if (currentVersion == claims.getTokenVersion()) {
+        return new CustomUserDetails(User.builder()
+            .id(claims.getUserId())
+            .username(claims.getSubject())
+            .role(Role.valueOf(claims.getRole()))
+            .tokenVersion(currentVersion)
+            .build());
+      }
+      if (currentVersion != TokenVersionRegistry.UNKNOWN) {
+        return null; // Revoked by a newer token version, or the user was deleted
+      }
+      // Not in the registry yet, fall back to the database
+    }
+    try {
+      return principalCache.load(claims.getSubject());
+    } catch (UsernameNotFoundException e) {
+      return null;
+    }
+  }
 }
\ No newline at end of file
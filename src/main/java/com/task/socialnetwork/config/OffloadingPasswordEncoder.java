@@ -0,0 +1,136 @@
+package com.task.socialnetwork.config;
+
+import com.task.socialnetwork.error.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * BCrypt encoder that runs hashing and verification on a dedicated, bounded worker pool.
+ * A burst of logins can then only occupy these workers instead of every request thread; once
+ * the queue is full, or a hash waits longer than the configured limit, callers get a 503.
+ *
+ * <p>BCrypt does not react to interrupts, so a hash keeps its worker until it finishes even after
+ * its caller timed out. Admission therefore counts every task until it has really ended, and a
+ * task whose caller gave up skips the hash once it gets a worker.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder, AutoCloseable {
+  private static final String SATURATED = "Too many sign-in requests, please retry shortly";
+
+  private final BCryptPasswordEncoder delegate;
+  private final ThreadPoolExecutor executor;
+  // One permit per worker and queue slot, released when a task ends rather than when its
+  // caller stops waiting
+  private final Semaphore slots;
+  private final long maxWaitMillis;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+  private final Counter rejected;
+
+  public OffloadingPasswordEncoder(int strength, int poolSize, int queueCapacity,
+                                   Duration maxWait, MeterRegistry meterRegistry) {
+    this.delegate = new BCryptPasswordEncoder(strength);
+    // The permits bound the queue. A bounded queue would also reject tasks offered between a
+    // worker releasing its permit and taking the next task, and cannot have a capacity of 0.
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), workerThreads(), new ThreadPoolExecutor.AbortPolicy());
+    this.slots = new Semaphore(poolSize + queueCapacity);
+    this.maxWaitMillis = maxWait.toMillis();
+
+    Gauge.builder("password.hash.queue.size", executor, e -> e.getQueue().size())
+        .register(meterRegistry);
+    Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(meterRegistry);
+    this.encodeTimer = Timer.builder("password.hash.duration").tag("operation", "encode")
+        .register(meterRegistry);
+    this.matchesTimer = Timer.builder("password.hash.duration").tag("operation", "matches")
+        .register(meterRegistry);
+    this.rejected = Counter.builder("password.hash.rejected").register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(() -> encodeTimer.recordCallable(() -> delegate.encode(rawPassword)));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(() -> matchesTimer.recordCallable(
+        () -> delegate.matches(rawPassword, encodedPassword)));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword); // Only parses the hash prefix
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  private <T> T run(Callable<T> task) {
+    if (!slots.tryAcquire()) {
+      rejected.increment();
+      throw new ServiceUnavailableException(SATURATED);
+    }
+    AtomicBoolean abandoned = new AtomicBoolean();
+    Future<T> future;
+    try {
+      // Never cancelled: a cancelled task would not run, and its permit would never come back
+      future = executor.submit(() -> {
+        try {
+          return abandoned.get() ? null : task.call();
+        } finally {
+          slots.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      slots.release();
+      rejected.increment();
+      throw new ServiceUnavailableException(SATURATED);
+    }
+    try {
+      return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      abandoned.set(true);
+      rejected.increment();
+      throw new ServiceUnavailableException(SATURATED);
+    } catch (InterruptedException e) {
+      abandoned.set(true);
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException(SATURATED);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException; // e.g. IllegalArgumentException for a null password
+      }
+      throw new IllegalStateException("Password hashing failed", e.getCause());
+    }
+  }
+
+  private static ThreadFactory workerThreads() {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -1,6 +1,9 @@
 package com.task.socialnetwork.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -10,7 +13,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -55,6 +57,8 @@ public class SecurityConfig {
                 "/webjars/**"
             ).permitAll()
             .requestMatchers("/api/auth/**").permitAll() // Register and Login
+            .requestMatchers("/actuator/health").permitAll()
+            .requestMatchers("/actuator/**").hasRole("ADMIN")
 
             // All other requests require authentication
             .anyRequest().authenticated()
@@ -74,12 +78,21 @@ public class SecurityConfig {
   }
 
   /**
-   * Configures a password encoder bean.
+   * Configures a password encoder bean. BCrypt runs on its own bounded pool so that hashing
+   * never occupies more than {@code security.password.pool-size} cores.
    *
-   * @return An instance of BCryptPasswordEncoder.
+   * @return A BCrypt encoder backed by a dedicated worker pool.
    */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(
+      MeterRegistry meterRegistry,
+      @Value("${security.password.bcrypt-strength}") int strength,
+      @Value("${security.password.pool-size:0}") int poolSize,
+      @Value("${security.password.queue-capacity}") int queueCapacity,
+      @Value("${security.password.max-wait}") Duration maxWait) {
+    // Default to one worker per core, leaving request threads free for everything else
+    int workers = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    return new OffloadingPasswordEncoder(strength, workers, queueCapacity, maxWait,
+        meterRegistry);
   }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.task.socialnetwork.controller;
+
+import com.task.socialnetwork.dto.ImportReportDTO;
+import com.task.socialnetwork.service.ImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/import")
+@RequiredArgsConstructor
+public class ImportController {
+  private final ImportService importService;
+
+  @Operation(summary = "Import posts",
+      description = "Streams newline-delimited JSON posts, each optionally with comments and "
+          + "likes, into the database in batches and reports the throughput.")
+  @PreAuthorize("hasRole('ADMIN')")
+  @PostMapping(value = "/posts",
+      consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity<ImportReportDTO> importPosts(InputStream body) throws IOException {
+    return ResponseEntity.ok(importService.importPosts(body));
+  }
+}
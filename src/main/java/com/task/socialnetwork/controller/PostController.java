@@ -2,11 +2,16 @@ package com.task.socialnetwork.controller;
 
 import com.task.socialnetwork.dto.AddCommentDTO;
 import com.task.socialnetwork.dto.CommentDTO;
+import com.task.socialnetwork.dto.CursorPageDTO;
+import com.task.socialnetwork.dto.LikerDTO;
+import com.task.socialnetwork.dto.LikeResponseDTO;
 import com.task.socialnetwork.dto.PostResponseDTO;
 import com.task.socialnetwork.model.CustomUserDetails;
 import com.task.socialnetwork.model.FilterType;
 import com.task.socialnetwork.model.User;
 import com.task.socialnetwork.service.PostService;
+import com.task.socialnetwork.storage.ImageVariant;
+import com.task.socialnetwork.storage.StoredImage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,6 +19,8 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -49,8 +56,7 @@ public class PostController {
       @AuthenticationPrincipal CustomUserDetails customUserDetails) {
     User user = customUserDetails.getUser();
     try {
-      byte[] imageData = imageFile != null ? imageFile.getBytes() : null;
-      PostResponseDTO createdPost = postService.createPost(content, imageData, user);
+      PostResponseDTO createdPost = postService.createPost(content, imageFile, user);
       return ResponseEntity.status(HttpStatus.CREATED).body(createdPost);
     } catch (IOException e) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
@@ -61,21 +67,56 @@ public class PostController {
       description = "Fetch the details of a specific post using its ID.")
   @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
   @GetMapping("/{postId}")
-  public ResponseEntity<PostResponseDTO> getPost(@PathVariable Long postId) {
-    PostResponseDTO post = postService.getPostById(postId);
+  public ResponseEntity<PostResponseDTO> getPost(@PathVariable Long postId,
+                                                 @AuthenticationPrincipal
+                                                 CustomUserDetails customUserDetails) {
+    Long viewerId = customUserDetails.getUser().getId();
+    PostResponseDTO post = postService.getPostById(postId, viewerId);
     return ResponseEntity.ok(post);
   }
 
+  @Operation(summary = "Download a post image",
+      description = "Streams the image of a post, optionally as a downscaled variant. "
+          + "Supports ETag revalidation and Range requests.")
+  @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+  @GetMapping("/{postId}/image")
+  public ResponseEntity<Resource> getPostImage(
+      @PathVariable Long postId,
+      @RequestParam(defaultValue = "ORIGINAL") ImageVariant variant) {
+    StoredImage image = postService.getPostImage(postId, variant);
+    MediaType mediaType = image.getContentType() != null
+        ? MediaType.parseMediaType(image.getContentType())
+        : MediaType.APPLICATION_OCTET_STREAM;
+    // Spring answers If-None-Match with 304 and Range with 206 for Resource bodies
+    return ResponseEntity.ok()
+        .eTag(image.getKey())
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .contentType(mediaType)
+        .body(image.getResource());
+  }
+
   @Operation(summary = "Like or unlike a post",
-      description = "Allows a user to like or unlike a specific post.")
+      description = "Toggles the current user's like on a post and returns the new state "
+          + "and like count.")
   @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
   @PostMapping("/{postId}/like")
-  public ResponseEntity<Void> likePost(@PathVariable Long postId,
-                                       @AuthenticationPrincipal
-                                       CustomUserDetails customUserDetails) {
+  public ResponseEntity<LikeResponseDTO> likePost(@PathVariable Long postId,
+                                                  @AuthenticationPrincipal
+                                                  CustomUserDetails customUserDetails) {
     User user = customUserDetails.getUser();
-    postService.likePost(postId, user);
-    return ResponseEntity.ok().build();
+    return ResponseEntity.ok(postService.likePost(postId, user));
+  }
+
+  @Operation(summary = "Retrieve the users who liked a post",
+      description = "Fetch a page of the users who liked a post, ordered by user id. Pass the "
+          + "returned nextCursor to fetch the following page.")
+  @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+  @GetMapping("/{postId}/likes")
+  public ResponseEntity<CursorPageDTO<LikerDTO>> getLikes(
+      @PathVariable Long postId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size) {
+    return ResponseEntity.ok(postService.getLikes(postId, cursor, size));
   }
 
   @Operation(summary = "Comment on a post",
@@ -91,21 +132,53 @@ public class PostController {
         .body(postService.addComment(postId, comment, user));
   }
 
+  @Operation(summary = "Retrieve the comments of a post",
+      description = "Fetch a page of a post's comments, oldest first. Pass the returned "
+          + "nextCursor to fetch the following page.")
+  @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+  @GetMapping("/{postId}/comments")
+  public ResponseEntity<CursorPageDTO<CommentDTO>> getComments(
+      @PathVariable Long postId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size) {
+    return ResponseEntity.ok(postService.getComments(postId, cursor, size));
+  }
+
   @Operation(summary = "Retrieve news feed",
-      description = "Fetch the latest posts with an optional filter by time or popularity.")
+      description = "Fetch a page of the latest posts ordered by time or popularity. "
+          + "Pass the returned nextCursor to fetch the following page.")
   @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
   @GetMapping("/feed")
-  public ResponseEntity<List<PostResponseDTO>> getNewsFeed(
-      @RequestParam FilterType filter) {
-    return ResponseEntity.ok(postService.getNewsFeed(filter));
+  public ResponseEntity<CursorPageDTO<PostResponseDTO>> getNewsFeed(
+      @RequestParam FilterType filter,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size,
+      @AuthenticationPrincipal CustomUserDetails customUserDetails) {
+    Long viewerId = customUserDetails.getUser().getId();
+    return ResponseEntity.ok(postService.getNewsFeed(filter, cursor, size, viewerId));
+  }
+
+  @Operation(summary = "Retrieve home timeline",
+      description = "Fetch a page of the current user's home timeline: their own posts and "
+          + "those of the users they follow, newest first. Pass the returned nextCursor to "
+          + "fetch the following page.")
+  @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+  @GetMapping("/timeline")
+  public ResponseEntity<CursorPageDTO<PostResponseDTO>> getHomeTimeline(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size,
+      @AuthenticationPrincipal CustomUserDetails customUserDetails) {
+    Long userId = customUserDetails.getUser().getId();
+    return ResponseEntity.ok(postService.getHomeTimeline(userId, cursor, size));
   }
 
   @Operation(summary = "Retrieve all posts",
       description = "Fetch a list of all posts available in the system.")
   @PreAuthorize("hasRole('ADMIN')")
   @GetMapping
-  public ResponseEntity<List<PostResponseDTO>> getAllPosts() {
-    List<PostResponseDTO> posts = postService.getAllPosts();
+  public ResponseEntity<List<PostResponseDTO>> getAllPosts(
+      @AuthenticationPrincipal CustomUserDetails customUserDetails) {
+    List<PostResponseDTO> posts = postService.getAllPosts(customUserDetails.getUser().getId());
     return ResponseEntity.ok(posts);
   }
 
@@ -123,8 +196,7 @@ public class PostController {
                                                     CustomUserDetails customUserDetails) {
     User user = customUserDetails.getUser();
     try {
-      byte[] imageData = imageFile != null ? imageFile.getBytes() : null;
-      PostResponseDTO updatedPost = postService.updatePost(postId, content, imageData, user);
+      PostResponseDTO updatedPost = postService.updatePost(postId, content, imageFile, user);
       return ResponseEntity.ok(updatedPost);
     } catch (IOException e) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
@@ -154,7 +226,8 @@ public class PostController {
       @AuthenticationPrincipal
       CustomUserDetails customUserDetails) {
     List<PostResponseDTO> userPosts =
-        postService.getPostsByUser(userId, filter, startTime, endTime);
+        postService.getPostsByUser(userId, filter, startTime, endTime,
+            customUserDetails.getUser().getId());
     return ResponseEntity.ok(userPosts);
   }
 }
\ No newline at end of file
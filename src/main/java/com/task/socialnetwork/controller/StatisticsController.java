@@ -1,7 +1,11 @@
 package com.task.socialnetwork.controller;
 
+import com.task.socialnetwork.dto.EngagementPointDTO;
 import com.task.socialnetwork.dto.PostStatisticsDTO;
+import com.task.socialnetwork.dto.TrendingPostDTO;
 import com.task.socialnetwork.dto.UserActivityDTO;
+import com.task.socialnetwork.model.EngagementMetric;
+import com.task.socialnetwork.model.Granularity;
 import com.task.socialnetwork.service.StatisticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import java.util.List;
@@ -9,6 +13,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -38,4 +43,48 @@ public class StatisticsController {
     UserActivityDTO userActivity = statisticsService.getUserActivity(userId);
     return ResponseEntity.ok(userActivity);
   }
+
+  @Operation(summary = "Retrieve activity statistics for several users",
+      description = "Fetch post, like and comment counts for up to 100 users in one request. Unknown user ids are omitted.")
+  @PreAuthorize("hasRole('ADMIN')")
+  @GetMapping("/user-activity/batch")
+  public ResponseEntity<List<UserActivityDTO>> getUserActivities(
+      @RequestParam List<Long> userIds) {
+    return ResponseEntity.ok(statisticsService.getUserActivities(userIds));
+  }
+
+  @Operation(summary = "Retrieve the engagement time series of a post",
+      description = "Likes or comments on the post per minute (last hour), hour or day (last `days` days). Buckets are in the server's time zone.")
+  @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+  @GetMapping("/posts/{postId}/engagement")
+  public ResponseEntity<List<EngagementPointDTO>> getPostEngagement(
+      @PathVariable Long postId,
+      @RequestParam(defaultValue = "LIKES") EngagementMetric metric,
+      @RequestParam(defaultValue = "HOUR") Granularity granularity,
+      @RequestParam(defaultValue = "7") int days) {
+    return ResponseEntity.ok(
+        statisticsService.getPostEngagement(postId, metric, granularity, days));
+  }
+
+  @Operation(summary = "Retrieve the engagement time series of a user",
+      description = "Posts written, likes received or comments received per minute (last hour), hour or day (last `days` days). Buckets are in the server's time zone.")
+  @PreAuthorize("hasRole('ADMIN')")
+  @GetMapping("/users/{userId}/engagement")
+  public ResponseEntity<List<EngagementPointDTO>> getUserEngagement(
+      @PathVariable Long userId,
+      @RequestParam(defaultValue = "POSTS") EngagementMetric metric,
+      @RequestParam(defaultValue = "HOUR") Granularity granularity,
+      @RequestParam(defaultValue = "7") int days) {
+    return ResponseEntity.ok(
+        statisticsService.getUserEngagement(userId, metric, granularity, days));
+  }
+
+  @Operation(summary = "Retrieve posts trending in the last hour",
+      description = "Posts with the most likes and comments over the last 60 minutes.")
+  @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+  @GetMapping("/trending")
+  public ResponseEntity<List<TrendingPostDTO>> getTrendingLastHour(
+      @RequestParam(defaultValue = "10") int limit) {
+    return ResponseEntity.ok(statisticsService.getTrendingLastHour(limit));
+  }
 }
@@ -4,6 +4,7 @@ import com.task.socialnetwork.dto.UserDTO;
 import com.task.socialnetwork.dto.UserUpdateRequestDTO;
 import com.task.socialnetwork.model.CustomUserDetails;
 import com.task.socialnetwork.model.User;
+import com.task.socialnetwork.service.FollowService;
 import com.task.socialnetwork.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import java.util.List;
@@ -14,6 +15,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -24,6 +26,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class UserController {
   private final UserService userService;
+  private final FollowService followService;
 
   @Operation(summary = "Update user profile",
       description = "Allows a user to update their profile details.")
@@ -65,4 +68,28 @@ public class UserController {
     List<User> users = userService.getAllUsers();
     return ResponseEntity.ok(users);
   }
+
+  @Operation(summary = "Follow a user",
+      description = "Adds the user's posts to the current user's home timeline.")
+  @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+  @PostMapping("/{userId}/follow")
+  public ResponseEntity<Void> followUser(
+      @PathVariable Long userId,
+      @AuthenticationPrincipal
+      CustomUserDetails customUserDetails) {
+    followService.follow(customUserDetails.getUser().getId(), userId);
+    return ResponseEntity.noContent().build();
+  }
+
+  @Operation(summary = "Unfollow a user",
+      description = "Removes the user's posts from the current user's home timeline.")
+  @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+  @DeleteMapping("/{userId}/follow")
+  public ResponseEntity<Void> unfollowUser(
+      @PathVariable Long userId,
+      @AuthenticationPrincipal
+      CustomUserDetails customUserDetails) {
+    followService.unfollow(customUserDetails.getUser().getId(), userId);
+    return ResponseEntity.noContent().build();
+  }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.task.socialnetwork.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageDTO<T> {
+  private List<T> items;
+  private String nextCursor; // Opaque cursor for the next page, null on the last page
+  private boolean hasMore;
+}
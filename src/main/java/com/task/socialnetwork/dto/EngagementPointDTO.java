@@ -0,0 +1,14 @@
+package com.task.socialnetwork.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EngagementPointDTO {
+  private LocalDateTime bucketStart; // Application time zone
+  private long count;
+}
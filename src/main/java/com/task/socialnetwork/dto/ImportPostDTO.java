@@ -0,0 +1,31 @@
+package com.task.socialnetwork.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a post import: the post, its comments and the ids of the users who liked it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportPostDTO {
+  private Long authorId;
+  private String content;
+  private LocalDateTime createdAt; // Defaults to the import time
+  private List<ImportCommentDTO> comments = new ArrayList<>();
+  private List<Long> likes = new ArrayList<>();
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  public static class ImportCommentDTO {
+    private Long userId;
+    private String content;
+    private LocalDateTime createdAt;
+  }
+}
@@ -0,0 +1,21 @@
+package com.task.socialnetwork.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class ImportReportDTO {
+  private long linesRead;
+  private long postsImported;
+  private long commentsImported;
+  private long likesImported;
+  private long linesRejected;
+  // Set when the stream could not be parsed any further; earlier batches stay imported
+  private boolean aborted;
+  private List<String> errors = new ArrayList<>(); // The first ones only
+  private long durationMillis;
+  private double rowsPerSecond; // Posts, comments and likes written
+}
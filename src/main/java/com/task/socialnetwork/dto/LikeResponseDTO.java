@@ -0,0 +1,14 @@
+package com.task.socialnetwork.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LikeResponseDTO {
+  private Long postId;
+  private boolean liked; // State after the toggle
+  private long likeCount;
+}
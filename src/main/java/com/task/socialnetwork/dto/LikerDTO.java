@@ -0,0 +1,15 @@
+package com.task.socialnetwork.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LikerDTO {
+  private Long id;
+  private String username;
+  private LocalDateTime likedAt;
+}
@@ -12,10 +12,14 @@ import lombok.NoArgsConstructor;
 public class PostResponseDTO {
   private Long id;
   private String content;
-  private String imageData; // Base64 encoded image
+  private String imageUrl; // Null when the post has no image
+  private String thumbnailUrl;
+  private Integer imageWidth;
+  private Integer imageHeight;
   private UserDTO user;
-  private List<CommentDTO> comments;
-  private List<UserDTO> likes; // Users who liked the post
+  private List<CommentDTO> latestComments; // Preview in thread order, the full thread is paged
+  private boolean likedByMe; // Whether the requesting user liked the post
   private LocalDateTime createdAt;
-  private int likeCount;
+  private long likeCount;
+  private long commentCount;
 }
\ No newline at end of file
@@ -2,9 +2,11 @@ package com.task.socialnetwork.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class PostStatisticsDTO {
   private Long postId;
   private String content;
@@ -0,0 +1,14 @@
+package com.task.socialnetwork.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrendingPostDTO {
+  private Long postId;
+  private long likes;
+  private long comments;
+}
@@ -1,5 +1,6 @@
 package com.task.socialnetwork.dto;
 
+import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -9,6 +10,9 @@ public class UserActivityDTO {
   private Long userId;
   private String username;
   private long postCount;
-  private long likeCount;
+  private long likeCount; // Likes received on the user's posts
+  private long likesGiven;
   private long commentCount;
+  // Last change of the summary row, null while the user has no recorded activity
+  private LocalDateTime updatedAt;
 }
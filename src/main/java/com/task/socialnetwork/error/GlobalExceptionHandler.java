@@ -3,14 +3,17 @@ package com.task.socialnetwork.error;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -85,6 +88,44 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
   }
 
+  /**
+   * Handles uploads over the configured limits and returns a 413 Payload Too Large response.
+   */
+  @ExceptionHandler({PayloadTooLargeException.class, MaxUploadSizeExceededException.class})
+  public ResponseEntity<Map<String, String>> handlePayloadTooLargeException(Exception ex) {
+    Map<String, String> errorResponse = new HashMap<>();
+    errorResponse.put("error", "Payload Too Large");
+    errorResponse.put("message", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(errorResponse);
+  }
+
+  /**
+   * Handles ServiceUnavailableException and returns a 503 Service Unavailable response.
+   */
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<Map<String, String>> handleServiceUnavailableException(
+      ServiceUnavailableException ex) {
+    Map<String, String> errorResponse = new HashMap<>();
+    errorResponse.put("error", "Service Unavailable");
+    errorResponse.put("message", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(errorResponse);
+  }
+
+  /**
+   * Unwraps a saturated password encoder, which DaoAuthenticationProvider reports as an internal
+   * error when it hashes for an unknown user, into a 503 response; anything else stays a 500.
+   */
+  @ExceptionHandler(InternalAuthenticationServiceException.class)
+  public ResponseEntity<Map<String, String>> handleInternalAuthenticationServiceException(
+      InternalAuthenticationServiceException ex) {
+    if (ex.getCause() instanceof ServiceUnavailableException unavailable) {
+      return handleServiceUnavailableException(unavailable);
+    }
+    return handleGenericException(ex);
+  }
+
   /**
    * Handles generic exceptions and returns a 500 Internal Server Error response.
    */
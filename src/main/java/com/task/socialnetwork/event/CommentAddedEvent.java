@@ -0,0 +1,13 @@
+package com.task.socialnetwork.event;
+
+import java.time.LocalDateTime;
+import lombok.Value;
+
+@Value
+public class CommentAddedEvent {
+  Long commentId;
+  Long postId;
+  Long postAuthorId;
+  Long userId;
+  LocalDateTime createdAt;
+}
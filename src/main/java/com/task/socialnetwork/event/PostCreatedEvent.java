@@ -0,0 +1,11 @@
+package com.task.socialnetwork.event;
+
+import java.time.LocalDateTime;
+import lombok.Value;
+
+@Value
+public class PostCreatedEvent {
+  Long postId;
+  Long authorId;
+  LocalDateTime createdAt;
+}
@@ -0,0 +1,12 @@
+package com.task.socialnetwork.event;
+
+import lombok.Value;
+
+/**
+ * Published before the post is deleted, so listeners can still read its likes and comments.
+ */
+@Value
+public class PostDeletedEvent {
+  Long postId;
+  Long authorId;
+}
@@ -0,0 +1,17 @@
+package com.task.socialnetwork.event;
+
+import java.time.LocalDateTime;
+import lombok.Value;
+
+/**
+ * Published only when a like was really added or removed. {@code likedAt} is the time of the
+ * like itself, also when it was removed.
+ */
+@Value
+public class PostLikeToggledEvent {
+  Long postId;
+  Long authorId;
+  Long userId;
+  boolean liked;
+  LocalDateTime likedAt;
+}
@@ -0,0 +1,33 @@
+package com.task.socialnetwork.event;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * Published once per batch of likes written together, a write-behind flush or an import batch,
+ * instead of a {@link PostLikeToggledEvent} per like, so listeners can apply the whole batch at
+ * once. {@code likes} holds only the likes that really changed; the maps hold their net deltas
+ * per post, per post author and per liking user.
+ */
+@Value
+public class PostLikesFlushedEvent {
+  List<PostLikeToggledEvent> likes;
+  Map<Long, Long> likesByPost;
+  Map<Long, Long> likesReceivedByUser;
+  Map<Long, Long> likesGivenByUser;
+
+  public static PostLikesFlushedEvent of(List<PostLikeToggledEvent> likes) {
+    Map<Long, Long> likesByPost = new HashMap<>();
+    Map<Long, Long> likesReceived = new HashMap<>();
+    Map<Long, Long> likesGiven = new HashMap<>();
+    for (PostLikeToggledEvent like : likes) {
+      long delta = like.isLiked() ? 1 : -1;
+      likesByPost.merge(like.getPostId(), delta, Long::sum);
+      likesReceived.merge(like.getAuthorId(), delta, Long::sum);
+      likesGiven.merge(like.getUserId(), delta, Long::sum);
+    }
+    return new PostLikesFlushedEvent(likes, likesByPost, likesReceived, likesGiven);
+  }
+}
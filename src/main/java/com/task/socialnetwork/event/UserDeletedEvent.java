@@ -0,0 +1,11 @@
+package com.task.socialnetwork.event;
+
+import lombok.Value;
+
+/**
+ * Published before the user and their content are deleted.
+ */
+@Value
+public class UserDeletedEvent {
+  Long userId;
+}
@@ -3,11 +3,20 @@ package com.task.socialnetwork.mapper;
 import com.task.socialnetwork.dto.AddCommentDTO;
 import com.task.socialnetwork.dto.CommentDTO;
 import com.task.socialnetwork.model.Comment;
+import com.task.socialnetwork.repository.projection.CommentView;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring", uses = {UserMapper.class})
 public interface CommentMapper {
   CommentDTO toDTO(Comment comment);
 
+  @Mapping(target = "user.id", source = "userId")
+  @Mapping(target = "user.username", source = "username")
+  @Mapping(target = "user.role", source = "role")
+  @Mapping(target = "user.email", source = "email")
+  @Mapping(target = "user.bio", source = "bio")
+  CommentDTO toDTO(CommentView comment);
+
   Comment toEntity(AddCommentDTO comment);
-}
\ No newline at end of file
+}
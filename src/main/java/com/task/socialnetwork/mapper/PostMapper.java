@@ -2,7 +2,7 @@ package com.task.socialnetwork.mapper;
 
 import com.task.socialnetwork.dto.PostResponseDTO;
 import com.task.socialnetwork.model.Post;
-import java.util.Base64;
+import com.task.socialnetwork.repository.projection.PostView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
@@ -12,12 +12,50 @@ import org.mapstruct.factory.Mappers;
 public interface PostMapper {
   PostMapper INSTANCE = Mappers.getMapper(PostMapper.class);
 
-  @Mapping(target = "likeCount", expression = "java(post.getLikes().size())")
-  @Mapping(source = "imageData", target = "imageData", qualifiedByName = "byteArrayToBase64")
+  @Mapping(target = "imageUrl", source = "post", qualifiedByName = "imageUrl")
+  @Mapping(target = "thumbnailUrl", source = "post", qualifiedByName = "thumbnailUrl")
+  @Mapping(target = "latestComments", ignore = true) // Filled for a whole page by PostService
+  @Mapping(target = "likedByMe", ignore = true)
   PostResponseDTO toResponseDTO(Post post);
 
-  @Named("byteArrayToBase64")
-  default String byteArrayToBase64(byte[] imageData) {
-    return imageData != null ? Base64.getEncoder().encodeToString(imageData) : null;
+  @Mapping(target = "imageUrl", source = "post", qualifiedByName = "viewImageUrl")
+  @Mapping(target = "thumbnailUrl", source = "post", qualifiedByName = "viewThumbnailUrl")
+  @Mapping(target = "user.id", source = "userId")
+  @Mapping(target = "user.username", source = "username")
+  @Mapping(target = "user.role", source = "role")
+  @Mapping(target = "user.email", source = "email")
+  @Mapping(target = "user.bio", source = "bio")
+  @Mapping(target = "latestComments", ignore = true)
+  @Mapping(target = "likedByMe", ignore = true)
+  PostResponseDTO toResponseDTO(PostView post);
+
+  @Named("imageUrl")
+  default String imageUrl(Post post) {
+    return imageUrl(post.getId(), post.getImageKey());
+  }
+
+  @Named("viewImageUrl")
+  default String imageUrl(PostView post) {
+    return imageUrl(post.getId(), post.getImageKey());
+  }
+
+  @Named("thumbnailUrl")
+  default String thumbnailUrl(Post post) {
+    return thumbnailUrl(post.getId(), post.getImageKey(), post.getThumbnailKey());
+  }
+
+  @Named("viewThumbnailUrl")
+  default String thumbnailUrl(PostView post) {
+    return thumbnailUrl(post.getId(), post.getImageKey(), post.getThumbnailKey());
+  }
+
+  private static String imageUrl(Long postId, String imageKey) {
+    return imageKey != null ? "/api/posts/" + postId + "/image" : null;
+  }
+
+  // Feeds render the small variant; until it is processed the original is the only choice
+  private static String thumbnailUrl(Long postId, String imageKey, String thumbnailKey) {
+    return thumbnailKey != null ? imageUrl(postId, imageKey) + "?variant=THUMBNAIL"
+        : imageUrl(postId, imageKey);
   }
-}
\ No newline at end of file
+}
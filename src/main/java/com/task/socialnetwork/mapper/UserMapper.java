@@ -1,15 +1,19 @@
 package com.task.socialnetwork.mapper;
 
+import com.task.socialnetwork.dto.LikerDTO;
 import com.task.socialnetwork.dto.RegistrationRequestDTO;
 import com.task.socialnetwork.dto.UserDTO;
 import com.task.socialnetwork.dto.UserUpdateRequestDTO;
 import com.task.socialnetwork.model.User;
+import com.task.socialnetwork.repository.projection.LikerView;
 import org.mapstruct.Mapper;
 
 @Mapper(componentModel = "spring")
 public interface UserMapper {
   UserDTO toDTO(User user);
 
+  LikerDTO toLikerDTO(LikerView liker);
+
   User toEntity(RegistrationRequestDTO requestDTO);
 
   User toEntity(UserUpdateRequestDTO requestDTO);
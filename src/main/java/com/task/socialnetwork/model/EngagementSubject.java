@@ -0,0 +1,5 @@
+package com.task.socialnetwork.model;
+
+public enum EngagementSubject {
+  POST, USER
+}
@@ -1,5 +1,5 @@
 package com.task.socialnetwork.model;
 
 public enum FilterType {
-  POPULARITY, TIME
+  POPULARITY, TIME, TRENDING
 }
@@ -0,0 +1,17 @@
+package com.task.socialnetwork.model;
+
+import java.time.Duration;
+
+public enum Granularity {
+  MINUTE(Duration.ofMinutes(1)), HOUR(Duration.ofHours(1)), DAY(Duration.ofDays(1));
+
+  private final Duration length;
+
+  Granularity(Duration length) {
+    this.length = length;
+  }
+
+  public Duration getLength() {
+    return length;
+  }
+}
@@ -8,10 +8,10 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
-import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -31,15 +31,32 @@ import lombok.NoArgsConstructor;
 @Builder
 public class Post {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+  @SequenceGenerator(name = "posts_seq", sequenceName = "posts_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false)
   private String content;
 
-  @Lob  // For storing the binary image data
-  @Column
-  private byte[] imageData;
+  // Key of the image in the BlobStore; the bytes themselves live outside the posts table
+  @Column(name = "image_key")
+  private String imageKey;
+
+  @Column(name = "image_content_type")
+  private String imageContentType;
+
+  // Downscaled variants are written by ImageProcessingService once they are ready
+  @Column(name = "medium_key", insertable = false, updatable = false)
+  private String mediumKey;
+
+  @Column(name = "thumbnail_key", insertable = false, updatable = false)
+  private String thumbnailKey;
+
+  @Column(name = "image_width", insertable = false, updatable = false)
+  private Integer imageWidth;
+
+  @Column(name = "image_height", insertable = false, updatable = false)
+  private Integer imageHeight;
 
   @ManyToOne
   @JoinColumn(name = "user_id", nullable = false)
@@ -58,16 +75,10 @@ public class Post {
 
   private LocalDateTime createdAt = LocalDateTime.now();
 
-  // Utility methods
-  public void addLike(User user) {
-    likes.add(user);
-  }
-
-  public void removeLike(User user) {
-    likes.remove(user);
-  }
+  // Denormalized counters, maintained with atomic SQL updates in PostRepository
+  @Column(name = "like_count", insertable = false, updatable = false)
+  private long likeCount;
 
-  public int getLikeCount() {
-    return likes.size();
-  }
+  @Column(name = "comment_count", insertable = false, updatable = false)
+  private long commentCount;
 }
\ No newline at end of file
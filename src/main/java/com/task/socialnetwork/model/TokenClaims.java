@@ -0,0 +1,22 @@
+package com.task.socialnetwork.model;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The verified contents of a JWT, produced by a single parse of the token.
+ */
+@Getter
+@AllArgsConstructor
+public class TokenClaims {
+  private final String subject;
+  private final Instant expiresAt;
+  private final String role;
+  private final Long userId; // Null for tokens issued without the stateless claims
+  private final Integer tokenVersion;
+
+  public boolean isExpired() {
+    return !expiresAt.isAfter(Instant.now());
+  }
+}
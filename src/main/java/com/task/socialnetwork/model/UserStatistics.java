@@ -0,0 +1,39 @@
+package com.task.socialnetwork.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-user aggregates kept up to date incrementally by {@code StatisticsUpdater}. Rows are only
+ * ever written with SQL deltas, never through the entity.
+ */
+@Entity
+@Table(name = "user_statistics")
+@Data
+@NoArgsConstructor
+public class UserStatistics {
+
+  @Id
+  @Column(name = "user_id")
+  private Long userId;
+
+  @Column(name = "post_count")
+  private long postCount;
+
+  @Column(name = "likes_received")
+  private long likesReceived;
+
+  @Column(name = "likes_given")
+  private long likesGiven;
+
+  @Column(name = "comment_count")
+  private long commentCount;
+
+  @Column(name = "updated_at")
+  private LocalDateTime updatedAt;
+}
@@ -1,11 +1,44 @@
 package com.task.socialnetwork.repository;
 
 import com.task.socialnetwork.model.Comment;
+import com.task.socialnetwork.repository.projection.CommentView;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
   long countByUserId(Long userId);
   void deleteAllByUserId(Long userId);
-}
\ No newline at end of file
+
+  // Comment threads are read oldest first, in keyset pages on (createdAt, id)
+  @Query("SELECT c.id AS id, c.post.id AS postId, c.content AS content, "
+      + "c.createdAt AS createdAt, u.id AS userId, u.username AS username, u.role AS role, "
+      + "u.email AS email, u.bio AS bio "
+      + "FROM Comment c JOIN c.user u WHERE c.post.id = :postId "
+      + "ORDER BY c.createdAt, c.id")
+  List<CommentView> findThread(Long postId, Limit limit);
+
+  @Query("SELECT c.id AS id, c.post.id AS postId, c.content AS content, "
+      + "c.createdAt AS createdAt, u.id AS userId, u.username AS username, u.role AS role, "
+      + "u.email AS email, u.bio AS bio "
+      + "FROM Comment c JOIN c.user u WHERE c.post.id = :postId "
+      + "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) "
+      + "ORDER BY c.createdAt, c.id")
+  List<CommentView> findThreadAfter(Long postId, LocalDateTime createdAt, Long id, Limit limit);
+
+  // Latest :perPost comments of every post on a page in one statement: the lateral subquery
+  // reads each post's newest comments, the outer ORDER BY puts them back in thread order
+  @Query(value = "SELECT c.id AS \"id\", c.post_id AS \"postId\", c.content AS \"content\", "
+      + "c.created_at AS \"createdAt\", u.id AS \"userId\", u.username AS \"username\", "
+      + "u.role AS \"role\", u.email AS \"email\", u.bio AS \"bio\" "
+      + "FROM posts p CROSS JOIN LATERAL (SELECT * FROM comment c2 WHERE c2.post_id = p.id "
+      + "ORDER BY c2.created_at DESC, c2.id DESC LIMIT :perPost) c "
+      + "JOIN users u ON u.id = c.user_id WHERE p.id IN :postIds "
+      + "ORDER BY c.post_id, c.created_at, c.id", nativeQuery = true)
+  List<CommentView> findLatestByPostIds(Collection<Long> postIds, int perPost);
+}
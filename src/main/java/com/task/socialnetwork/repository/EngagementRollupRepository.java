@@ -0,0 +1,62 @@
+package com.task.socialnetwork.repository;
+
+import com.task.socialnetwork.model.EngagementMetric;
+import com.task.socialnetwork.model.EngagementSubject;
+import com.task.socialnetwork.model.Granularity;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Hour and day engagement counters. Rows are only ever incremented, so flushes from several
+ * nodes add up instead of overwriting each other.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EngagementRollupRepository {
+  private final JdbcTemplate jdbcTemplate;
+
+  public record Delta(EngagementSubject subject, long subjectId, EngagementMetric metric,
+                      Granularity granularity, LocalDateTime bucketStart, long count) {
+  }
+
+  public void addAll(List<Delta> deltas) {
+    jdbcTemplate.batchUpdate("INSERT INTO engagement_rollup (subject_type, subject_id, metric, "
+            + "granularity, bucket_start, count) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (subject_type, subject_id, metric, granularity, bucket_start) "
+            + "DO UPDATE SET count = engagement_rollup.count + EXCLUDED.count",
+        deltas, 500, (ps, delta) -> {
+          ps.setString(1, delta.subject().name());
+          ps.setLong(2, delta.subjectId());
+          ps.setString(3, delta.metric().name());
+          ps.setString(4, delta.granularity().name());
+          ps.setTimestamp(5, Timestamp.valueOf(delta.bucketStart()));
+          ps.setLong(6, delta.count());
+        });
+  }
+
+  public Map<LocalDateTime, Long> findCounts(EngagementSubject subject, long subjectId,
+                                             EngagementMetric metric, Granularity granularity,
+                                             LocalDateTime from) {
+    Map<LocalDateTime, Long> counts = new HashMap<>();
+    jdbcTemplate.query("SELECT bucket_start, count FROM engagement_rollup "
+            + "WHERE subject_type = ? AND subject_id = ? AND metric = ? AND granularity = ? "
+            + "AND bucket_start >= ?",
+        rs -> {
+          counts.put(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2));
+        },
+        subject.name(), subjectId, metric.name(), granularity.name(), Timestamp.valueOf(from));
+    return counts;
+  }
+
+  public int deleteOlderThan(Granularity granularity, LocalDateTime before) {
+    return jdbcTemplate.update(
+        "DELETE FROM engagement_rollup WHERE granularity = ? AND bucket_start < ?",
+        granularity.name(), Timestamp.valueOf(before));
+  }
+}
@@ -0,0 +1,143 @@
+package com.task.socialnetwork.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC like writes that need more than a row count back, mostly batched for the write-behind
+ * mode. Every statement is idempotent: a like is only inserted when absent and while both the
+ * post and the user still exist, and removing a missing like is a no-op. The returned like times
+ * tell which writes really changed a row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PostLikeBatchRepository {
+  private final JdbcTemplate jdbcTemplate;
+
+  public record LikeWrite(long postId, long userId, boolean liked, LocalDateTime likedAt) {
+  }
+
+  public boolean exists(long postId, long userId) {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+        "SELECT EXISTS (SELECT 1 FROM post_likes WHERE post_id = ? AND user_id = ?)",
+        Boolean.class, postId, userId));
+  }
+
+  /**
+   * Removes the like and returns when it was made, or null when there was none.
+   */
+  public LocalDateTime deleteReturningLikedAt(long postId, long userId) {
+    List<LocalDateTime> likedAt = jdbcTemplate.queryForList(
+        "DELETE FROM post_likes WHERE post_id = ? AND user_id = ? RETURNING created_at",
+        LocalDateTime.class, postId, userId);
+    return likedAt.isEmpty() ? null : likedAt.get(0);
+  }
+
+  /**
+   * Applies the writes and returns, in the same order, the time of the like each one added or
+   * removed, or null for writes that changed no row.
+   */
+  public LocalDateTime[] applyAll(List<LikeWrite> writes, int batchSize) {
+    List<Integer> insertIndexes = new ArrayList<>();
+    List<Integer> deleteIndexes = new ArrayList<>();
+    for (int i = 0; i < writes.size(); i++) {
+      (writes.get(i).liked() ? insertIndexes : deleteIndexes).add(i);
+    }
+    LocalDateTime[] changed = new LocalDateTime[writes.size()];
+    int[][] inserted = jdbcTemplate.batchUpdate("INSERT INTO post_likes (post_id, user_id, "
+            + "created_at) SELECT p.id, u.id, ? FROM posts p JOIN users u ON u.id = ? "
+            + "WHERE p.id = ? ON CONFLICT DO NOTHING",
+        insertIndexes, batchSize, (ps, index) -> {
+          LikeWrite write = writes.get(index);
+          ps.setTimestamp(1, Timestamp.valueOf(write.likedAt()));
+          ps.setLong(2, write.userId());
+          ps.setLong(3, write.postId());
+        });
+    markInserted(changed, writes, insertIndexes, inserted);
+    // Deletes return the original like times, one statement per chunk of pairs
+    for (int from = 0; from < deleteIndexes.size(); from += batchSize) {
+      List<Integer> chunk =
+          deleteIndexes.subList(from, Math.min(from + batchSize, deleteIndexes.size()));
+      Map<LikeKey, Integer> indexByKey = new HashMap<>();
+      Long[] postIds = new Long[chunk.size()];
+      Long[] userIds = new Long[chunk.size()];
+      for (int i = 0; i < chunk.size(); i++) {
+        LikeWrite write = writes.get(chunk.get(i));
+        postIds[i] = write.postId();
+        userIds[i] = write.userId();
+        indexByKey.put(new LikeKey(write.postId(), write.userId()), chunk.get(i));
+      }
+      jdbcTemplate.query("DELETE FROM post_likes l USING unnest(?, ?) AS d(post_id, user_id) "
+              + "WHERE l.post_id = d.post_id AND l.user_id = d.user_id "
+              + "RETURNING l.post_id, l.user_id, l.created_at",
+          ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", postIds));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", userIds));
+          },
+          rs -> {
+            Integer index = indexByKey.get(new LikeKey(rs.getLong(1), rs.getLong(2)));
+            changed[index] = rs.getObject(3, LocalDateTime.class);
+          });
+    }
+    return changed;
+  }
+
+  // Posts are updated in id order so that concurrent flushes cannot deadlock on them
+  public void adjustLikeCounts(Map<Long, Long> deltas, int batchSize) {
+    List<Map.Entry<Long, Long>> rows = new ArrayList<>(new TreeMap<>(deltas).entrySet());
+    rows.removeIf(row -> row.getValue() == 0);
+    jdbcTemplate.batchUpdate("UPDATE posts SET like_count = like_count + ? WHERE id = ?",
+        rows, batchSize, (ps, row) -> {
+          ps.setLong(1, row.getValue());
+          ps.setLong(2, row.getKey());
+        });
+  }
+
+  /**
+   * Adds the net likes received and given to user_statistics, one upsert per user in id order.
+   */
+  public void adjustLikeStatistics(Map<Long, Long> likesReceived, Map<Long, Long> likesGiven) {
+    Map<Long, long[]> deltas = new TreeMap<>();
+    likesReceived.forEach((userId, delta) ->
+        deltas.computeIfAbsent(userId, id -> new long[2])[0] += delta);
+    likesGiven.forEach((userId, delta) ->
+        deltas.computeIfAbsent(userId, id -> new long[2])[1] += delta);
+    List<Object[]> rows = new ArrayList<>(deltas.size());
+    deltas.forEach((userId, delta) -> {
+      if (delta[0] != 0 || delta[1] != 0) {
+        rows.add(new Object[] {userId, delta[0], delta[1]});
+      }
+    });
+    jdbcTemplate.batchUpdate("INSERT INTO user_statistics (user_id, post_count, "
+        + "likes_received, likes_given, comment_count, updated_at) "
+        + "VALUES (?, 0, ?, ?, 0, CURRENT_TIMESTAMP) "
+        + "ON CONFLICT (user_id) DO UPDATE SET "
+        + "likes_received = user_statistics.likes_received + EXCLUDED.likes_received, "
+        + "likes_given = user_statistics.likes_given + EXCLUDED.likes_given, "
+        + "updated_at = EXCLUDED.updated_at", rows);
+  }
+
+  private static void markInserted(LocalDateTime[] changed, List<LikeWrite> writes,
+                                   List<Integer> indexes, int[][] counts) {
+    int i = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        int index = indexes.get(i++);
+        if (count > 0) {
+          changed[index] = writes.get(index).likedAt();
+        }
+      }
+    }
+  }
+
+  private record LikeKey(long postId, long userId) {
+  }
+}
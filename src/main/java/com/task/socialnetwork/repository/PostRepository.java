@@ -1,28 +1,233 @@
 package com.task.socialnetwork.repository;
 
+import com.task.socialnetwork.dto.PostStatisticsDTO;
 import com.task.socialnetwork.model.Post;
+import com.task.socialnetwork.repository.projection.LikerView;
+import com.task.socialnetwork.repository.projection.PostImageView;
+import com.task.socialnetwork.repository.projection.PostView;
+import com.task.socialnetwork.repository.projection.TimelineEntryView;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
+  // Read paths select PostView rows: the post and its author in one statement, instead of
+  // entities whose author is then loaded one select per post
+  String POST_VIEW = "SELECT p.id AS \"id\", p.content AS \"content\", "
+      + "p.image_key AS \"imageKey\", p.thumbnail_key AS \"thumbnailKey\", "
+      + "p.image_width AS \"imageWidth\", p.image_height AS \"imageHeight\", "
+      + "p.created_at AS \"createdAt\", p.like_count AS \"likeCount\", "
+      + "p.comment_count AS \"commentCount\", u.id AS \"userId\", "
+      + "u.username AS \"username\", u.role AS \"role\", u.email AS \"email\", "
+      + "u.bio AS \"bio\" ";
 
-  // Use an EntityGraph to eagerly load comments and likes
-  @EntityGraph(attributePaths = {"comments", "likes"})
-  @Query("SELECT p FROM Post p WHERE p.id = :id")
-  Optional<Post> findByIdWithCommentsAndLikes(Long id);
+  @Query(value = POST_VIEW + "FROM posts p JOIN users u ON u.id = p.user_id "
+      + "WHERE p.user_id = :userId ORDER BY p.created_at DESC, p.id DESC", nativeQuery = true)
+  List<PostView> findViewsByUserId(Long userId);
 
-  List<Post> findAllByUserId(Long userId);
+  @Query(value = POST_VIEW + "FROM posts p JOIN users u ON u.id = p.user_id "
+      + "WHERE p.id IN :ids", nativeQuery = true)
+  List<PostView> findViewsByIdIn(Collection<Long> ids);
 
-  @Query("SELECT p FROM Post p LEFT JOIN p.likes l GROUP BY p ORDER BY COUNT(l) DESC")
-  List<Post> findAllByPopularity();
+  @Query(value = POST_VIEW + "FROM posts p JOIN users u ON u.id = p.user_id ORDER BY p.id",
+      nativeQuery = true)
+  List<PostView> findAllViews();
 
-  @Query("SELECT p FROM Post p ORDER BY p.createdAt DESC")
-  List<Post> findAllByTime();
+  long countByIdIn(Collection<Long> ids);
+
+  @Query("SELECT p.imageKey AS imageKey, p.imageContentType AS imageContentType, "
+      + "p.mediumKey AS mediumKey, p.thumbnailKey AS thumbnailKey "
+      + "FROM Post p WHERE p.id = :postId")
+  Optional<PostImageView> findImageById(Long postId);
+
+  // Only applies if the post still points at the image the variants were made from
+  @Transactional
+  @Modifying
+  @Query(value = "UPDATE posts SET medium_key = :mediumKey, thumbnail_key = :thumbnailKey, "
+      + "image_width = :width, image_height = :height "
+      + "WHERE id = :postId AND image_key = :imageKey", nativeQuery = true)
+  int updateImageVariants(Long postId, String imageKey, String mediumKey, String thumbnailKey,
+                          int width, int height);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE posts SET medium_key = NULL, thumbnail_key = NULL, "
+      + "image_width = NULL, image_height = NULL WHERE id = :postId", nativeQuery = true)
+  int clearImageVariants(Long postId);
+
+  // Keyset pages: the row-value comparison lets Postgres seek the index instead of using OFFSET
+  @Query(value = POST_VIEW + "FROM posts p JOIN users u ON u.id = p.user_id "
+      + "ORDER BY p.created_at DESC, p.id DESC LIMIT :limit", nativeQuery = true)
+  List<PostView> findFeedByTime(int limit);
+
+  @Query(value = POST_VIEW + "FROM posts p JOIN users u ON u.id = p.user_id "
+      + "WHERE (p.created_at, p.id) < (:createdAt, :id) "
+      + "ORDER BY p.created_at DESC, p.id DESC LIMIT :limit", nativeQuery = true)
+  List<PostView> findFeedByTimeBefore(LocalDateTime createdAt, Long id, int limit);
+
+  @Query(value = POST_VIEW + "FROM posts p JOIN users u ON u.id = p.user_id "
+      + "ORDER BY p.like_count DESC, p.id DESC LIMIT :limit", nativeQuery = true)
+  List<PostView> findFeedByPopularity(int limit);
+
+  @Query(value = POST_VIEW + "FROM posts p JOIN users u ON u.id = p.user_id "
+      + "WHERE (p.like_count, p.id) < (:likeCount, :id) "
+      + "ORDER BY p.like_count DESC, p.id DESC LIMIT :limit", nativeQuery = true)
+  List<PostView> findFeedByPopularityBefore(long likeCount, Long id, int limit);
+
+  // Home timelines: one range scan of pk_home_timeline per page
+  @Query(value = POST_VIEW + "FROM home_timeline h JOIN posts p ON p.id = h.post_id "
+      + "JOIN users u ON u.id = p.user_id WHERE h.user_id = :userId "
+      + "ORDER BY h.created_at DESC, h.post_id DESC LIMIT :limit", nativeQuery = true)
+  List<PostView> findTimeline(Long userId, int limit);
+
+  @Query(value = POST_VIEW + "FROM home_timeline h JOIN posts p ON p.id = h.post_id "
+      + "JOIN users u ON u.id = p.user_id WHERE h.user_id = :userId "
+      + "AND (h.created_at, h.post_id) < (:createdAt, :id) "
+      + "ORDER BY h.created_at DESC, h.post_id DESC LIMIT :limit", nativeQuery = true)
+  List<PostView> findTimelineBefore(Long userId, LocalDateTime createdAt, Long id, int limit);
+
+  // Fan-out on write: the post lands in the author's own timeline and, unless the author has
+  // at least :maxFollowers followers, in every follower's one
+  @Modifying(flushAutomatically = true)
+  @Query(value = "INSERT INTO home_timeline (user_id, created_at, post_id, author_id) "
+      + "SELECT f.follower_id, :createdAt, :postId, :authorId FROM follows f "
+      + "WHERE f.followee_id = :authorId AND (SELECT u.follower_count FROM users u "
+      + "WHERE u.id = :authorId) < :maxFollowers "
+      + "UNION ALL SELECT :authorId, :createdAt, :postId, :authorId "
+      + "ON CONFLICT DO NOTHING", nativeQuery = true)
+  int fanOutToFollowers(Long postId, Long authorId, LocalDateTime createdAt, int maxFollowers);
+
+  // Set-based variant of fanOutToFollowers for posts inserted in bulk
+  @Modifying(flushAutomatically = true)
+  @Query(value = "INSERT INTO home_timeline (user_id, created_at, post_id, author_id) "
+      + "SELECT f.follower_id, p.created_at, p.id, p.user_id FROM posts p "
+      + "JOIN users u ON u.id = p.user_id JOIN follows f ON f.followee_id = p.user_id "
+      + "WHERE p.id IN :postIds AND u.follower_count < :maxFollowers "
+      + "UNION ALL SELECT p.user_id, p.created_at, p.id, p.user_id FROM posts p "
+      + "WHERE p.id IN :postIds ON CONFLICT DO NOTHING", nativeQuery = true)
+  int fanOutPosts(Collection<Long> postIds, int maxFollowers);
+
+  // Delivers an author's latest posts to all followers at once
+  @Modifying(flushAutomatically = true)
+  @Query(value = "INSERT INTO home_timeline (user_id, created_at, post_id, author_id) "
+      + "SELECT f.follower_id, p.created_at, p.id, p.user_id FROM follows f "
+      + "CROSS JOIN (SELECT id, created_at, user_id FROM posts WHERE user_id = :authorId "
+      + "ORDER BY created_at DESC, id DESC LIMIT :limit) p "
+      + "WHERE f.followee_id = :authorId ON CONFLICT DO NOTHING", nativeQuery = true)
+  int fanOutRecentPosts(Long authorId, int limit);
+
+  @Query("SELECT p.id AS postId, p.createdAt AS createdAt FROM Post p "
+      + "WHERE p.user.id = :authorId ORDER BY p.createdAt DESC, p.id DESC")
+  List<TimelineEntryView> findRecentEntriesByAuthor(Long authorId, Limit limit);
+
+  @Query("SELECT p.id AS postId, p.createdAt AS createdAt FROM Post p "
+      + "WHERE p.user.id = :authorId AND (p.createdAt < :createdAt "
+      + "OR (p.createdAt = :createdAt AND p.id < :id)) ORDER BY p.createdAt DESC, p.id DESC")
+  List<TimelineEntryView> findEntriesByAuthorBefore(Long authorId, LocalDateTime createdAt,
+                                                    Long id, Limit limit);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "INSERT INTO home_timeline (user_id, created_at, post_id, author_id) "
+      + "SELECT :followerId, p.created_at, p.id, p.user_id FROM posts p "
+      + "WHERE p.user_id = :authorId ORDER BY p.created_at DESC, p.id DESC LIMIT :limit "
+      + "ON CONFLICT DO NOTHING", nativeQuery = true)
+  int backfillTimeline(Long followerId, Long authorId, int limit);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "DELETE FROM home_timeline WHERE user_id = :userId AND author_id = :authorId",
+      nativeQuery = true)
+  int deleteTimelineEntries(Long userId, Long authorId);
+
+  // Per owner: the first entry past :maxLength is found by walking pk_home_timeline from the
+  // newest end, and everything from there on is deleted with one range of the same index
+  @Modifying
+  @Query(value = "DELETE FROM home_timeline h USING (SELECT u.id AS user_id, cut.created_at, "
+      + "cut.post_id FROM users u CROSS JOIN LATERAL (SELECT created_at, post_id "
+      + "FROM home_timeline WHERE user_id = u.id ORDER BY created_at DESC, post_id DESC "
+      + "OFFSET :maxLength LIMIT 1) cut WHERE u.id IN :userIds) old "
+      + "WHERE h.user_id = old.user_id "
+      + "AND (h.created_at, h.post_id) <= (old.created_at, old.post_id)", nativeQuery = true)
+  int trimTimelines(Collection<Long> userIds, int maxLength);
+
+  // Reads the top rows of idx_posts_like_count_id straight into DTOs, no entities or collections
+  @Query("SELECT new com.task.socialnetwork.dto.PostStatisticsDTO("
+      + "p.id, p.content, p.likeCount, p.commentCount) "
+      + "FROM Post p ORDER BY p.likeCount DESC, p.id DESC")
+  List<PostStatisticsDTO> findMostLiked(Limit limit);
+
+  // Like toggling works directly on the (post_id, user_id) primary key of post_likes, removal
+  // goes through PostLikeBatchRepository#deleteReturningLikedAt
+  @Modifying(flushAutomatically = true)
+  @Query(value = "INSERT INTO post_likes (post_id, user_id, created_at) "
+      + "VALUES (:postId, :userId, :likedAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+  int insertLikeIfAbsent(Long postId, Long userId, LocalDateTime likedAt);
+
+  // Which posts of a page the viewer liked, one statement for the whole page
+  @Query(value = "SELECT l.post_id FROM post_likes l "
+      + "WHERE l.user_id = :userId AND l.post_id IN :postIds", nativeQuery = true)
+  List<Long> findPostIdsLikedBy(Long userId, Collection<Long> postIds);
+
+  @Query(value = "SELECT l.post_id FROM post_likes l "
+      + "WHERE l.user_id = :userId AND l.post_id > :afterPostId", nativeQuery = true)
+  List<Long> findPostIdsLikedAfter(Long userId, long afterPostId);
+
+  @Query("SELECT MAX(p.id) FROM Post p")
+  Optional<Long> findMaxId();
+
+  // Likers in keyset pages on user_id, a range scan of the (post_id, user_id) primary key
+  @Query(value = "SELECT u.id AS \"id\", u.username AS \"username\", "
+      + "l.created_at AS \"likedAt\" FROM post_likes l JOIN users u ON u.id = l.user_id "
+      + "WHERE l.post_id = :postId AND l.user_id > :afterUserId "
+      + "ORDER BY l.user_id LIMIT :limit", nativeQuery = true)
+  List<LikerView> findLikers(Long postId, long afterUserId, int limit);
+
+  @Query(value = "SELECT p.like_count FROM posts p WHERE p.id = :postId", nativeQuery = true)
+  long findLikeCountById(Long postId);
+
+  @Query("SELECT p.user.id FROM Post p WHERE p.id = :postId")
+  Optional<Long> findAuthorIdById(Long postId);
+
+  // Counter maintenance: single-statement increments so concurrent writers never lose updates
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE posts SET like_count = like_count + :delta WHERE id = :postId",
+      nativeQuery = true)
+  int adjustLikeCount(Long postId, long delta);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE posts SET comment_count = comment_count + :delta WHERE id = :postId",
+      nativeQuery = true)
+  int adjustCommentCount(Long postId, long delta);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE posts SET like_count = like_count - 1 "
+      + "WHERE id IN (SELECT post_id FROM post_likes WHERE user_id = :userId)", nativeQuery = true)
+  int decrementLikeCountsLikedBy(Long userId);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE posts p SET comment_count = p.comment_count - c.cnt "
+      + "FROM (SELECT post_id, COUNT(*) AS cnt FROM comment WHERE user_id = :userId "
+      + "GROUP BY post_id) c WHERE p.id = c.post_id", nativeQuery = true)
+  int decrementCommentCountsCommentedBy(Long userId);
+
+  // Drift repair for the counters, rewrites only rows whose value differs from the raw tables
+  @Modifying
+  @Query(value = "UPDATE posts p SET like_count = c.cnt "
+      + "FROM (SELECT p2.id, (SELECT COUNT(*) FROM post_likes l WHERE l.post_id = p2.id) AS cnt "
+      + "FROM posts p2) c WHERE p.id = c.id AND p.like_count <> c.cnt", nativeQuery = true)
+  int reconcileLikeCounts();
+
+  @Modifying
+  @Query(value = "UPDATE posts p SET comment_count = c.cnt "
+      + "FROM (SELECT p2.id, (SELECT COUNT(*) FROM comment cm WHERE cm.post_id = p2.id) AS cnt "
+      + "FROM posts p2) c WHERE p.id = c.id AND p.comment_count <> c.cnt", nativeQuery = true)
+  int reconcileCommentCounts();
 
   long countByUserId(Long userId);
   void deleteAllByUserId(Long userId);
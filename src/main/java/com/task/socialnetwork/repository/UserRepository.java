@@ -1,11 +1,103 @@
 package com.task.socialnetwork.repository;
 
 import com.task.socialnetwork.model.User;
+import com.task.socialnetwork.repository.projection.TokenVersionView;
+import com.task.socialnetwork.repository.projection.UserActivityView;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByUsername(String username);
-}
\ No newline at end of file
+
+  long countByIdIn(Collection<Long> ids);
+
+  @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+  List<Long> findExistingIds(Collection<Long> ids);
+
+  // Constant cost per user: one primary key lookup into the user_statistics summary table
+  @Query("SELECT u.id AS userId, u.username AS username, "
+      + "COALESCE(s.postCount, 0) AS postCount, COALESCE(s.likesReceived, 0) AS likeCount, "
+      + "COALESCE(s.likesGiven, 0) AS likesGiven, COALESCE(s.commentCount, 0) AS commentCount, "
+      + "s.updatedAt AS updatedAt "
+      + "FROM User u LEFT JOIN UserStatistics s ON s.userId = u.id "
+      + "WHERE u.id IN :userIds ORDER BY u.id")
+  List<UserActivityView> findActivityByIds(Collection<Long> userIds);
+
+  @Query("SELECT u.id AS id, u.tokenVersion AS tokenVersion "
+      + "FROM User u WHERE u.id > :afterId ORDER BY u.id")
+  List<TokenVersionView> findTokenVersionsAfter(Long afterId, Limit limit);
+
+  @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+  List<Long> findIdsAfter(Long afterId, Limit limit);
+
+  // Changes written by transactions at or after the given id, in any commit order
+  @Query(value = "SELECT user_id AS \"id\", token_version AS \"tokenVersion\" "
+      + "FROM token_version_changes WHERE txid >= :sinceTxid", nativeQuery = true)
+  List<TokenVersionView> findTokenVersionChangesSince(long sinceTxid);
+
+  // Every transaction below this id has either committed or rolled back
+  @Query(value = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint",
+      nativeQuery = true)
+  long findOldestActiveTxid();
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "INSERT INTO token_version_changes (user_id, token_version) "
+      + "VALUES (:userId, :tokenVersion)", nativeQuery = true)
+  int insertTokenVersionChange(Long userId, int tokenVersion);
+
+  @Modifying
+  @Query(value = "DELETE FROM token_version_changes WHERE created_at < :before",
+      nativeQuery = true)
+  int deleteTokenVersionChangesBefore(LocalDateTime before);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE users SET token_version = token_version + 1 WHERE id = :userId",
+      nativeQuery = true)
+  int bumpTokenVersion(Long userId);
+
+  @Query(value = "SELECT token_version FROM users WHERE id = :userId", nativeQuery = true)
+  int findTokenVersionById(Long userId);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "INSERT INTO follows (follower_id, followee_id) VALUES (:followerId, :followeeId) "
+      + "ON CONFLICT DO NOTHING", nativeQuery = true)
+  int insertFollowIfAbsent(Long followerId, Long followeeId);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "DELETE FROM follows "
+      + "WHERE follower_id = :followerId AND followee_id = :followeeId", nativeQuery = true)
+  int deleteFollow(Long followerId, Long followeeId);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE users SET follower_count = follower_count + :delta WHERE id = :userId",
+      nativeQuery = true)
+  int adjustFollowerCount(Long userId, int delta);
+
+  @Query(value = "SELECT follower_count FROM users WHERE id = :userId", nativeQuery = true)
+  int findFollowerCountById(Long userId);
+
+  // Follows of a deleted user disappear through the cascade, their counters have to follow
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE users u SET follower_count = u.follower_count - 1 "
+      + "WHERE u.id IN (SELECT f.followee_id FROM follows f WHERE f.follower_id = :userId)",
+      nativeQuery = true)
+  int decrementFollowerCountsFollowedBy(Long userId);
+
+  @Query(value = "SELECT f.followee_id FROM follows f JOIN users u ON u.id = f.followee_id "
+      + "WHERE f.follower_id = :userId AND u.follower_count >= :threshold", nativeQuery = true)
+  List<Long> findFollowedAccountsWithFollowersAtLeast(Long userId, int threshold);
+
+  @Modifying
+  @Query(value = "UPDATE users u SET follower_count = c.cnt "
+      + "FROM (SELECT x.id, (SELECT COUNT(*) FROM follows f WHERE f.followee_id = x.id) AS cnt "
+      + "FROM users x) c WHERE u.id = c.id AND u.follower_count <> c.cnt", nativeQuery = true)
+  int reconcileFollowerCounts();
+}
@@ -0,0 +1,82 @@
+package com.task.socialnetwork.repository;
+
+import com.task.socialnetwork.model.UserStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserStatisticsRepository extends JpaRepository<UserStatistics, Long> {
+
+  // Upsert so users without a row yet (e.g. just registered) get one on their first activity
+  @Modifying(flushAutomatically = true)
+  @Query(value = "INSERT INTO user_statistics (user_id, post_count, likes_received, likes_given, "
+      + "comment_count, updated_at) "
+      + "VALUES (:userId, :posts, :likesReceived, :likesGiven, :comments, CURRENT_TIMESTAMP) "
+      + "ON CONFLICT (user_id) DO UPDATE SET "
+      + "post_count = user_statistics.post_count + EXCLUDED.post_count, "
+      + "likes_received = user_statistics.likes_received + EXCLUDED.likes_received, "
+      + "likes_given = user_statistics.likes_given + EXCLUDED.likes_given, "
+      + "comment_count = user_statistics.comment_count + EXCLUDED.comment_count, "
+      + "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+  void adjust(Long userId, long posts, long likesReceived, long likesGiven, long comments);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE user_statistics s SET likes_given = s.likes_given - 1, "
+      + "updated_at = CURRENT_TIMESTAMP "
+      + "WHERE s.user_id IN (SELECT l.user_id FROM post_likes l WHERE l.post_id = :postId)",
+      nativeQuery = true)
+  int decrementLikesGivenOnPost(Long postId);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE user_statistics s SET comment_count = s.comment_count - c.cnt, "
+      + "updated_at = CURRENT_TIMESTAMP "
+      + "FROM (SELECT user_id, COUNT(*) AS cnt FROM comment WHERE post_id = :postId "
+      + "GROUP BY user_id) c WHERE s.user_id = c.user_id", nativeQuery = true)
+  int decrementCommentsOnPost(Long postId);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE user_statistics s SET likes_received = s.likes_received - l.cnt, "
+      + "updated_at = CURRENT_TIMESTAMP "
+      + "FROM (SELECT p.user_id, COUNT(*) AS cnt FROM post_likes pl "
+      + "JOIN posts p ON p.id = pl.post_id WHERE pl.user_id = :userId GROUP BY p.user_id) l "
+      + "WHERE s.user_id = l.user_id", nativeQuery = true)
+  int decrementLikesReceivedFrom(Long userId);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE user_statistics s SET likes_given = s.likes_given - l.cnt, "
+      + "updated_at = CURRENT_TIMESTAMP "
+      + "FROM (SELECT pl.user_id, COUNT(*) AS cnt FROM post_likes pl "
+      + "JOIN posts p ON p.id = pl.post_id WHERE p.user_id = :userId GROUP BY pl.user_id) l "
+      + "WHERE s.user_id = l.user_id", nativeQuery = true)
+  int decrementLikesGivenOnPostsOf(Long userId);
+
+  @Modifying(flushAutomatically = true)
+  @Query(value = "UPDATE user_statistics s SET comment_count = s.comment_count - c.cnt, "
+      + "updated_at = CURRENT_TIMESTAMP "
+      + "FROM (SELECT c.user_id, COUNT(*) AS cnt FROM comment c "
+      + "JOIN posts p ON p.id = c.post_id WHERE p.user_id = :userId GROUP BY c.user_id) c "
+      + "WHERE s.user_id = c.user_id", nativeQuery = true)
+  int decrementCommentsOnPostsOf(Long userId);
+
+  // Recomputes every row from the raw tables and rewrites only the ones that drifted
+  @Modifying
+  @Query(value = "INSERT INTO user_statistics (user_id, post_count, likes_received, likes_given, "
+      + "comment_count, updated_at) "
+      + "SELECT u.id, "
+      + "(SELECT COUNT(*) FROM posts p WHERE p.user_id = u.id), "
+      + "(SELECT COALESCE(SUM(p.like_count), 0) FROM posts p WHERE p.user_id = u.id), "
+      + "(SELECT COUNT(*) FROM post_likes l WHERE l.user_id = u.id), "
+      + "(SELECT COUNT(*) FROM comment c WHERE c.user_id = u.id), "
+      + "CURRENT_TIMESTAMP FROM users u "
+      + "ON CONFLICT (user_id) DO UPDATE SET "
+      + "post_count = EXCLUDED.post_count, likes_received = EXCLUDED.likes_received, "
+      + "likes_given = EXCLUDED.likes_given, comment_count = EXCLUDED.comment_count, "
+      + "updated_at = EXCLUDED.updated_at "
+      + "WHERE (user_statistics.post_count, user_statistics.likes_received, "
+      + "user_statistics.likes_given, user_statistics.comment_count) IS DISTINCT FROM "
+      + "(EXCLUDED.post_count, EXCLUDED.likes_received, EXCLUDED.likes_given, "
+      + "EXCLUDED.comment_count)", nativeQuery = true)
+  int reconcile();
+}
@@ -0,0 +1,24 @@
+package com.task.socialnetwork.repository.projection;
+
+import java.time.LocalDateTime;
+
+// A comment flattened together with its author, read without loading either entity
+public interface CommentView {
+  Long getId();
+
+  Long getPostId();
+
+  String getContent();
+
+  LocalDateTime getCreatedAt();
+
+  Long getUserId();
+
+  String getUsername();
+
+  String getRole();
+
+  String getEmail();
+
+  String getBio();
+}
@@ -0,0 +1,11 @@
+package com.task.socialnetwork.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface LikerView {
+  Long getId();
+
+  String getUsername();
+
+  LocalDateTime getLikedAt();
+}
@@ -0,0 +1,11 @@
+package com.task.socialnetwork.repository.projection;
+
+public interface PostImageView {
+  String getImageKey();
+
+  String getImageContentType();
+
+  String getMediumKey();
+
+  String getThumbnailKey();
+}
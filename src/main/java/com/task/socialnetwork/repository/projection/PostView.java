@@ -0,0 +1,34 @@
+package com.task.socialnetwork.repository.projection;
+
+import java.time.LocalDateTime;
+
+// A post flattened together with its author: every field PostResponseDTO shows, in one row
+public interface PostView {
+  Long getId();
+
+  String getContent();
+
+  String getImageKey();
+
+  String getThumbnailKey();
+
+  Integer getImageWidth();
+
+  Integer getImageHeight();
+
+  LocalDateTime getCreatedAt();
+
+  long getLikeCount();
+
+  long getCommentCount();
+
+  Long getUserId();
+
+  String getUsername();
+
+  String getRole();
+
+  String getEmail();
+
+  String getBio();
+}
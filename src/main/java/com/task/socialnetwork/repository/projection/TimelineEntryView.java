@@ -0,0 +1,9 @@
+package com.task.socialnetwork.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface TimelineEntryView {
+  Long getPostId();
+
+  LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,7 @@
+package com.task.socialnetwork.repository.projection;
+
+public interface TokenVersionView {
+  Long getId();
+
+  int getTokenVersion();
+}
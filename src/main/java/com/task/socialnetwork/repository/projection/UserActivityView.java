@@ -0,0 +1,19 @@
+package com.task.socialnetwork.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface UserActivityView {
+  Long getUserId();
+
+  String getUsername();
+
+  long getPostCount();
+
+  long getLikeCount();
+
+  long getLikesGiven();
+
+  long getCommentCount();
+
+  LocalDateTime getUpdatedAt();
+}
@@ -10,6 +10,8 @@ import com.task.socialnetwork.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
@@ -17,13 +19,20 @@ public class AuthService {
   private final UserRepository userRepository;
   private final PasswordEncoder passwordEncoder;
   private final UserMapper userMapper;
+  private final TokenVersionRegistry tokenVersionRegistry;
+  private final PlatformTransactionManager transactionManager;
 
   public void registerUser(RegistrationRequestDTO requestDTO) {
     User user = userMapper.toEntity(requestDTO);
     validateUserData(user);
+    // Hashed before the transaction starts, so no connection is held while it runs
     user.setPassword(passwordEncoder.encode(user.getPassword()));
     user.setRole(Role.ROLE_USER);
-    userRepository.save(user);
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      userRepository.save(user);
+      // New accounts start at version 0; logged so that every node knows them right away
+      tokenVersionRegistry.recordVersion(user.getId(), 0);
+    });
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.task.socialnetwork.service;
+
+import com.task.socialnetwork.model.Comment;
+import com.task.socialnetwork.model.Post;
+import com.task.socialnetwork.model.User;
+import com.task.socialnetwork.repository.PostRepository;
+import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.repository.UserStatisticsRepository;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Inserts many posts or comments in one transaction. Entities are persisted in chunks of the
+ * JDBC batch size, and each chunk goes out as one batched INSERT per table before the
+ * persistence context is cleared. Counters and statistics are adjusted once per post or user
+ * rather than once per row. Bulk-inserted content is treated as historical: it is not reported
+ * to the engagement series or the trending ranking.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkInsertService {
+  private final EntityManager entityManager;
+  private final PostRepository postRepository;
+  private final UserRepository userRepository;
+  private final UserStatisticsRepository userStatisticsRepository;
+  private final CelebrityPostCache celebrityPostCache;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+  private int batchSize;
+
+  @Value("${timeline.celebrity-threshold}")
+  private int celebrityThreshold;
+
+  public record NewPost(Long authorId, String content, LocalDateTime createdAt) {
+  }
+
+  public record NewComment(Long postId, Long userId, String content, LocalDateTime createdAt) {
+  }
+
+  /**
+   * Inserts the posts and delivers them to home timelines.
+   *
+   * @return The ids of the new posts, in input order.
+   */
+  @Transactional
+  public List<Long> insertPosts(List<NewPost> posts) {
+    if (posts.isEmpty()) {
+      return List.of();
+    }
+    Set<Long> authorIds = posts.stream().map(NewPost::authorId).collect(Collectors.toSet());
+    requireAll(authorIds, userRepository.countByIdIn(authorIds), "User");
+    List<Long> ids = new ArrayList<>(posts.size());
+    List<Long> chunk = new ArrayList<>(batchSize);
+    Map<Long, Long> postsPerAuthor = new HashMap<>();
+    for (NewPost newPost : posts) {
+      Post post = new Post();
+      post.setContent(newPost.content());
+      post.setUser(entityManager.getReference(User.class, newPost.authorId()));
+      if (newPost.createdAt() != null) {
+        post.setCreatedAt(newPost.createdAt());
+      }
+      entityManager.persist(post); // Takes its id from the pooled sequence, no round trip
+      ids.add(post.getId());
+      chunk.add(post.getId());
+      postsPerAuthor.merge(newPost.authorId(), 1L, Long::sum);
+      if (chunk.size() == batchSize) {
+        flushChunk(chunk);
+      }
+    }
+    flushChunk(chunk);
+    postsPerAuthor.forEach((authorId, count) ->
+        userStatisticsRepository.adjust(authorId, count, 0, 0, 0));
+    // No post events here, so the celebrity cache has to be told directly
+    celebrityPostCache.invalidateAfterCommit(authorIds);
+    return ids;
+  }
+
+  /**
+   * Inserts the comments and updates the comment counters of their posts.
+   *
+   * @return The ids of the new comments, in input order.
+   */
+  @Transactional
+  public List<Long> insertComments(List<NewComment> comments) {
+    if (comments.isEmpty()) {
+      return List.of();
+    }
+    Set<Long> postIds = comments.stream().map(NewComment::postId).collect(Collectors.toSet());
+    requireAll(postIds, postRepository.countByIdIn(postIds), "Post");
+    Set<Long> userIds = comments.stream().map(NewComment::userId).collect(Collectors.toSet());
+    requireAll(userIds, userRepository.countByIdIn(userIds), "User");
+    List<Long> ids = new ArrayList<>(comments.size());
+    Map<Long, Long> commentsPerPost = new HashMap<>();
+    Map<Long, Long> commentsPerUser = new HashMap<>();
+    int pending = 0;
+    for (NewComment newComment : comments) {
+      Comment comment = new Comment();
+      comment.setContent(newComment.content());
+      comment.setPost(entityManager.getReference(Post.class, newComment.postId()));
+      comment.setUser(entityManager.getReference(User.class, newComment.userId()));
+      if (newComment.createdAt() != null) {
+        comment.setCreatedAt(newComment.createdAt());
+      }
+      entityManager.persist(comment);
+      ids.add(comment.getId());
+      commentsPerPost.merge(newComment.postId(), 1L, Long::sum);
+      commentsPerUser.merge(newComment.userId(), 1L, Long::sum);
+      if (++pending == batchSize) {
+        entityManager.flush();
+        entityManager.clear();
+        pending = 0;
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+    commentsPerPost.forEach(postRepository::adjustCommentCount);
+    commentsPerUser.forEach((userId, count) ->
+        userStatisticsRepository.adjust(userId, 0, 0, 0, count));
+    return ids;
+  }
+
+  private void flushChunk(List<Long> postIds) {
+    entityManager.flush();
+    entityManager.clear();
+    if (!postIds.isEmpty()) {
+      postRepository.fanOutPosts(postIds, celebrityThreshold);
+      postIds.clear();
+    }
+  }
+
+  // Checked upfront: a foreign key violation would only surface at flush time and abort the
+  // whole batch with a generic error
+  private static void requireAll(Set<Long> ids, long found, String name) {
+    if (ids.contains(null) || found != ids.size()) {
+      throw new ResourceNotFoundException(name + " not found");
+    }
+  }
+}
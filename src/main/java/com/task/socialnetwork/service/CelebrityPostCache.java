@@ -0,0 +1,122 @@
+package com.task.socialnetwork.service;
+
+import static com.task.socialnetwork.util.TransactionUtil.runAfterCommit;
+
+import com.task.socialnetwork.event.PostCreatedEvent;
+import com.task.socialnetwork.event.PostDeletedEvent;
+import com.task.socialnetwork.repository.PostRepository;
+import com.task.socialnetwork.repository.projection.TimelineEntryView;
+import com.task.socialnetwork.util.ExpiringLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Latest posts of accounts above the fan-out threshold. Their posts are not copied into
+ * follower timelines, so every timeline read of a follower merges them in from here instead.
+ *
+ * <p>Only post ids and creation times of the latest posts are kept, newest first; pages that
+ * reach past them read the posts table. An author's entry is dropped as soon as one of their
+ * posts is created or deleted on this node, also by bulk inserts and imports; changes made on
+ * other nodes show up once the entry expires.
+ */
+@Service
+public class CelebrityPostCache {
+  private final PostRepository postRepository;
+  private final ExpiringLruCache<Long, List<RecentPost>> cache;
+  private final int postsPerAuthor;
+  private final long ttlMillis;
+
+  public record RecentPost(long postId, LocalDateTime createdAt) {
+    public static final Comparator<RecentPost> NEWEST_FIRST = Comparator
+        .comparing(RecentPost::createdAt).thenComparingLong(RecentPost::postId).reversed();
+  }
+
+  public CelebrityPostCache(PostRepository postRepository, MeterRegistry meterRegistry,
+                            @Value("${timeline.celebrity-cache.max-size}") int maxSize,
+                            @Value("${timeline.celebrity-cache.posts-per-author}")
+                            int postsPerAuthor,
+                            @Value("${timeline.celebrity-cache.ttl}") Duration ttl) {
+    this.postRepository = postRepository;
+    this.cache = new ExpiringLruCache<>(maxSize);
+    this.postsPerAuthor = postsPerAuthor;
+    this.ttlMillis = ttl.toMillis();
+
+    FunctionCounter.builder("timeline.celebrity.cache.hits", cache, ExpiringLruCache::hitCount)
+        .register(meterRegistry);
+    FunctionCounter.builder("timeline.celebrity.cache.misses", cache,
+            ExpiringLruCache::missCount)
+        .register(meterRegistry);
+    Gauge.builder("timeline.celebrity.cache.size", cache, ExpiringLruCache::size)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns the author's latest posts, newest first, loading them on a miss.
+   *
+   * @param authorId The author, expected to be above the fan-out threshold.
+   * @return Up to {@code timeline.celebrity-cache.posts-per-author} posts.
+   */
+  public List<RecentPost> recentPosts(Long authorId) {
+    List<RecentPost> posts = cache.get(authorId);
+    if (posts == null) {
+      posts = postRepository.findRecentEntriesByAuthor(authorId, Limit.of(postsPerAuthor))
+          .stream()
+          .map(entry -> new RecentPost(entry.getPostId(), entry.getCreatedAt()))
+          .toList();
+      cache.put(authorId, posts, System.currentTimeMillis() + ttlMillis);
+    }
+    return posts;
+  }
+
+  /**
+   * Returns up to {@code limit} of the author's posts older than the given one, newest first.
+   *
+   * @param before The last post of the previous page, or null for the first page.
+   */
+  public List<RecentPost> postsBefore(Long authorId, RecentPost before, int limit) {
+    List<RecentPost> recent = recentPosts(authorId);
+    List<RecentPost> older = before == null ? recent : recent.stream()
+        .filter(post -> RecentPost.NEWEST_FIRST.compare(post, before) > 0)
+        .toList();
+    // A window shorter than its cap holds every post of the author
+    if (older.size() >= limit || recent.size() < postsPerAuthor) {
+      return older.size() > limit ? older.subList(0, limit) : older;
+    }
+    // The page reaches past the cached window
+    List<TimelineEntryView> entries = before == null
+        ? postRepository.findRecentEntriesByAuthor(authorId, Limit.of(limit))
+        : postRepository.findEntriesByAuthorBefore(authorId, before.createdAt(),
+            before.postId(), Limit.of(limit));
+    return entries.stream()
+        .map(entry -> new RecentPost(entry.getPostId(), entry.getCreatedAt()))
+        .toList();
+  }
+
+  /**
+   * Drops the cached posts of the authors once the current transaction commits, for writes
+   * that publish no post events.
+   */
+  public void invalidateAfterCommit(Collection<Long> authorIds) {
+    runAfterCommit(() -> authorIds.forEach(cache::invalidate));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onPostCreated(PostCreatedEvent event) {
+    cache.invalidate(event.getAuthorId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onPostDeleted(PostDeletedEvent event) {
+    cache.invalidate(event.getAuthorId());
+  }
+}
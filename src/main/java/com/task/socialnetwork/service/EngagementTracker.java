@@ -0,0 +1,344 @@
+package com.task.socialnetwork.service;
+
+import com.task.socialnetwork.dto.EngagementPointDTO;
+import com.task.socialnetwork.dto.TrendingPostDTO;
+import com.task.socialnetwork.event.CommentAddedEvent;
+import com.task.socialnetwork.event.PostCreatedEvent;
+import com.task.socialnetwork.event.PostLikeToggledEvent;
+import com.task.socialnetwork.event.PostLikesFlushedEvent;
+import com.task.socialnetwork.model.EngagementMetric;
+import com.task.socialnetwork.model.EngagementSubject;
+import com.task.socialnetwork.model.Granularity;
+import com.task.socialnetwork.repository.EngagementRollupRepository;
+import com.task.socialnetwork.repository.EngagementRollupRepository.Delta;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Counts posts, likes and comments per minute for every post and user with recent activity.
+ *
+ * <p>Each active subject owns a ring of the last 60 minute buckets held in primitive long
+ * arrays. Completed minutes are flushed periodically into hour and day rows of the
+ * engagement_rollup table, which serves the longer ranges. Last-hour figures, such as trending
+ * posts, come from the rings alone and therefore cover the engagement seen by this instance.
+ * Buckets are in the application's time zone, like the other timestamps it returns.
+ */
+@Slf4j
+@Service
+public class EngagementTracker {
+  static final int RING_MINUTES = 60;
+  private static final int METRICS = EngagementMetric.values().length;
+
+  private final EngagementRollupRepository rollupRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration hourRetention;
+  private final Map<SubjectKey, MinuteRing> rings = new ConcurrentHashMap<>();
+  private final Object flushLock = new Object();
+  // Records hold the read lock; a flush takes the write lock to read the minutes it seals
+  private final ReadWriteLock sealLock = new ReentrantReadWriteLock();
+  // Last minute already added to the rollup table; flushSequence is odd while a flush writes
+  private volatile long flushedThroughMinute;
+  private volatile long flushSequence;
+  // Last minute read by a flush, later records land after it; guarded by sealLock
+  private long sealedThroughMinute;
+  private long lastPurgedHour; // Guarded by flushLock
+
+  public EngagementTracker(EngagementRollupRepository rollupRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${engagement.hour-retention}") Duration hourRetention) {
+    this.rollupRepository = rollupRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.hourRetention = hourRetention;
+    this.flushedThroughMinute = currentMinute() - 1;
+    this.sealedThroughMinute = flushedThroughMinute;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onPostCreated(PostCreatedEvent event) {
+    record(EngagementSubject.USER, event.getAuthorId(), EngagementMetric.POSTS, 1);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onLikeToggled(PostLikeToggledEvent event) {
+    long delta = event.isLiked() ? 1 : -1;
+    record(EngagementSubject.POST, event.getPostId(), EngagementMetric.LIKES, delta);
+    record(EngagementSubject.USER, event.getAuthorId(), EngagementMetric.LIKES, delta);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onLikesFlushed(PostLikesFlushedEvent event) {
+    event.getLikesByPost().forEach((postId, delta) ->
+        record(EngagementSubject.POST, postId, EngagementMetric.LIKES, delta));
+    event.getLikesReceivedByUser().forEach((userId, delta) ->
+        record(EngagementSubject.USER, userId, EngagementMetric.LIKES, delta));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCommentAdded(CommentAddedEvent event) {
+    record(EngagementSubject.POST, event.getPostId(), EngagementMetric.COMMENTS, 1);
+    record(EngagementSubject.USER, event.getPostAuthorId(), EngagementMetric.COMMENTS, 1);
+  }
+
+  /**
+   * Returns a dense series ending with the current bucket. Minute series cover the last hour,
+   * hour and day series the last {@code days} days.
+   */
+  public List<EngagementPointDTO> getSeries(EngagementSubject subject, long subjectId,
+                                            EngagementMetric metric, Granularity granularity,
+                                            int days) {
+    long nowMinute = currentMinute();
+    LocalDateTime end = truncate(toDateTime(nowMinute), granularity);
+    LocalDateTime start = granularity == Granularity.MINUTE
+        ? end.minusMinutes(RING_MINUTES - 1)
+        : truncate(end.minusDays(days), granularity).plus(granularity.getLength());
+
+    Map<LocalDateTime, Long> counts = new HashMap<>();
+    long fromMinute;
+    if (granularity == Granularity.MINUTE) {
+      fromMinute = nowMinute - RING_MINUTES + 1;
+    } else {
+      // Read the table and the flush watermark consistently: retry if a flush overlapped
+      while (true) {
+        long sequence = flushSequence;
+        if (sequence % 2 == 0) {
+          fromMinute = flushedThroughMinute + 1; // Minutes not in the table yet
+          Map<LocalDateTime, Long> stored =
+              rollupRepository.findCounts(subject, subjectId, metric, granularity, start);
+          if (sequence == flushSequence) {
+            counts.putAll(stored);
+            break;
+          }
+        } else {
+          synchronized (flushLock) {
+            // Wait for the running flush to finish before reading again
+          }
+        }
+      }
+    }
+    MinuteRing ring = rings.get(new SubjectKey(subject, subjectId));
+    if (ring != null) {
+      for (long minute = Math.max(fromMinute, nowMinute - RING_MINUTES + 1);
+           minute <= nowMinute; minute++) {
+        long count = ring.count(minute, metric.ordinal());
+        if (count != 0) {
+          counts.merge(truncate(toDateTime(minute), granularity), count, Long::sum);
+        }
+      }
+    }
+
+    List<EngagementPointDTO> series = new ArrayList<>();
+    for (LocalDateTime bucket = start; !bucket.isAfter(end);
+         bucket = bucket.plus(granularity.getLength())) {
+      series.add(new EngagementPointDTO(bucket, counts.getOrDefault(bucket, 0L)));
+    }
+    return series;
+  }
+
+  /**
+   * Posts with the most likes and comments over the last hour, read from memory only.
+   */
+  public List<TrendingPostDTO> getTrendingLastHour(int limit) {
+    long nowMinute = currentMinute();
+    long fromMinute = nowMinute - RING_MINUTES + 1;
+    Comparator<TrendingPostDTO> byEngagement =
+        Comparator.comparingLong((TrendingPostDTO post) -> post.getLikes() + post.getComments())
+            .thenComparing(TrendingPostDTO::getPostId);
+    // Min-heap of the best `limit` posts seen so far
+    PriorityQueue<TrendingPostDTO> top = new PriorityQueue<>(limit + 1, byEngagement);
+    rings.forEach((key, ring) -> {
+      if (key.subject() != EngagementSubject.POST) {
+        return;
+      }
+      long likes = ring.sum(EngagementMetric.LIKES.ordinal(), fromMinute, nowMinute);
+      long comments = ring.sum(EngagementMetric.COMMENTS.ordinal(), fromMinute, nowMinute);
+      if (likes + comments <= 0) {
+        return;
+      }
+      top.add(new TrendingPostDTO(key.id(), likes, comments));
+      if (top.size() > limit) {
+        top.poll();
+      }
+    });
+    List<TrendingPostDTO> result = new ArrayList<>(top);
+    result.sort(byEngagement.reversed());
+    return result;
+  }
+
+  /**
+   * Adds completed minutes to the hour and day rows of the rollup table and forgets subjects
+   * that have been idle for a full ring.
+   */
+  @Scheduled(fixedDelayString = "${engagement.flush-interval}")
+  public void flush() {
+    flushThrough(currentMinute() - 1);
+  }
+
+  /**
+   * Flushes the current minute as well, nothing is left in memory to be counted later.
+   */
+  @PreDestroy
+  public void shutdown() {
+    flushThrough(currentMinute());
+  }
+
+  private void flushThrough(long to) {
+    synchronized (flushLock) {
+      long nowMinute = currentMinute();
+      // Minutes older than the ring have been overwritten already
+      long from = Math.max(flushedThroughMinute + 1, nowMinute - RING_MINUTES + 1);
+      if (to < from) {
+        return;
+      }
+
+      Map<BucketKey, Long> pending = new HashMap<>();
+      sealLock.writeLock().lock();
+      try {
+        rings.forEach((key, ring) -> {
+          for (long minute = from; minute <= to; minute++) {
+            for (EngagementMetric metric : EngagementMetric.values()) {
+              long count = ring.count(minute, metric.ordinal());
+              if (count != 0) {
+                LocalDateTime time = toDateTime(minute);
+                pending.merge(new BucketKey(key, metric, Granularity.HOUR,
+                    truncate(time, Granularity.HOUR)), count, Long::sum);
+                pending.merge(new BucketKey(key, metric, Granularity.DAY,
+                    truncate(time, Granularity.DAY)), count, Long::sum);
+              }
+            }
+          }
+        });
+        sealedThroughMinute = Math.max(sealedThroughMinute, to);
+      } finally {
+        sealLock.writeLock().unlock();
+      }
+      List<Delta> deltas = pending.entrySet().stream()
+          .map(entry -> new Delta(entry.getKey().subject().subject(),
+              entry.getKey().subject().id(), entry.getKey().metric(),
+              entry.getKey().granularity(), entry.getKey().bucketStart(), entry.getValue()))
+          .toList();
+
+      flushSequence++;
+      try {
+        transactionTemplate.executeWithoutResult(status -> {
+          if (!deltas.isEmpty()) {
+            rollupRepository.addAll(deltas);
+          }
+        });
+        flushedThroughMinute = to;
+      } finally {
+        flushSequence++;
+      }
+
+      long idleBefore = nowMinute - RING_MINUTES;
+      rings.keySet().forEach(key ->
+          rings.computeIfPresent(key, (k, ring) -> ring.lastMinute() < idleBefore ? null : ring));
+
+      long hour = nowMinute / 60;
+      if (hour != lastPurgedHour) {
+        LocalDateTime cutoff = toDateTime(nowMinute).minus(hourRetention);
+        Integer purged = transactionTemplate.execute(
+            status -> rollupRepository.deleteOlderThan(Granularity.HOUR, cutoff));
+        lastPurgedHour = hour;
+        log.debug("Purged {} expired hourly engagement rows", purged);
+      }
+    }
+  }
+
+  private void record(EngagementSubject subject, Long id, EngagementMetric metric, long delta) {
+    sealLock.readLock().lock();
+    try {
+      // A minute that a flush has already read is closed, late events count towards the next
+      long minute = Math.max(currentMinute(), sealedThroughMinute + 1);
+      // compute() keeps the add atomic with the idle eviction in flush()
+      rings.compute(new SubjectKey(subject, id), (key, ring) -> {
+        MinuteRing target = ring != null ? ring : new MinuteRing();
+        target.add(minute, metric.ordinal(), delta);
+        return target;
+      });
+    } finally {
+      sealLock.readLock().unlock();
+    }
+  }
+
+  private static long currentMinute() {
+    return System.currentTimeMillis() / 60_000;
+  }
+
+  private static LocalDateTime toDateTime(long epochMinute) {
+    return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochMinute * 60), ZoneId.systemDefault());
+  }
+
+  private static LocalDateTime truncate(LocalDateTime time, Granularity granularity) {
+    return switch (granularity) {
+      case MINUTE -> time.truncatedTo(ChronoUnit.MINUTES);
+      case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+      case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+    };
+  }
+
+  private record SubjectKey(EngagementSubject subject, long id) {
+  }
+
+  private record BucketKey(SubjectKey subject, EngagementMetric metric, Granularity granularity,
+                           LocalDateTime bucketStart) {
+  }
+
+  /**
+   * Per-minute counters of one subject for the last {@link #RING_MINUTES} minutes. Slot i holds
+   * the minute {@code minutes[i]}, its counters sit at {@code counts[i * METRICS + metric]}.
+   */
+  static final class MinuteRing {
+    private final long[] minutes = new long[RING_MINUTES];
+    private final long[] counts = new long[RING_MINUTES * METRICS];
+
+    synchronized void add(long minute, int metric, long delta) {
+      int slot = (int) (minute % RING_MINUTES);
+      if (minutes[slot] != minute) {
+        // The slot still holds a minute from the previous lap of the ring
+        minutes[slot] = minute;
+        Arrays.fill(counts, slot * METRICS, slot * METRICS + METRICS, 0);
+      }
+      counts[slot * METRICS + metric] += delta;
+    }
+
+    synchronized long count(long minute, int metric) {
+      int slot = (int) (minute % RING_MINUTES);
+      return minutes[slot] == minute ? counts[slot * METRICS + metric] : 0;
+    }
+
+    synchronized long sum(int metric, long fromMinute, long toMinute) {
+      long total = 0;
+      for (int slot = 0; slot < RING_MINUTES; slot++) {
+        if (minutes[slot] >= fromMinute && minutes[slot] <= toMinute) {
+          total += counts[slot * METRICS + metric];
+        }
+      }
+      return total;
+    }
+
+    synchronized long lastMinute() {
+      return Arrays.stream(minutes).max().orElse(0);
+    }
+  }
+}
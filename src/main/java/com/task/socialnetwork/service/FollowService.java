@@ -0,0 +1,62 @@
+package com.task.socialnetwork.service;
+
+import com.task.socialnetwork.repository.PostRepository;
+import com.task.socialnetwork.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+public class FollowService {
+  private final UserRepository userRepository;
+  private final PostRepository postRepository;
+
+  @Value("${timeline.max-length}")
+  private int timelineMaxLength;
+
+  @Value("${timeline.celebrity-threshold}")
+  private int celebrityThreshold;
+
+  @Value("${timeline.celebrity-cache.posts-per-author}")
+  private int celebrityPostsPerAuthor;
+
+  /**
+   * Follows a user and copies their recent posts into the follower's home timeline, unless the
+   * user is above the fan-out threshold and their posts are merged in at read time.
+   */
+  @Transactional
+  public void follow(Long followerId, Long followeeId) {
+    if (followerId.equals(followeeId)) {
+      throw new IllegalArgumentException("Users cannot follow themselves");
+    }
+    if (!userRepository.existsById(followeeId)) {
+      throw new ResourceNotFoundException("User not found");
+    }
+    if (userRepository.insertFollowIfAbsent(followerId, followeeId) > 0) {
+      userRepository.adjustFollowerCount(followeeId, 1);
+      if (userRepository.findFollowerCountById(followeeId) < celebrityThreshold) {
+        postRepository.backfillTimeline(followerId, followeeId, timelineMaxLength);
+      }
+    }
+  }
+
+  /**
+   * Unfollows a user and removes their posts from the follower's home timeline.
+   */
+  @Transactional
+  public void unfollow(Long followerId, Long followeeId) {
+    if (userRepository.deleteFollow(followerId, followeeId) > 0) {
+      postRepository.deleteTimelineEntries(followerId, followeeId);
+      userRepository.adjustFollowerCount(followeeId, -1);
+      // The row lock taken by the update lets exactly one unfollow see the drop below the
+      // threshold. From then on the followee's posts are no longer merged in at read time, so
+      // the ones followers used to see that way are delivered to their timelines once.
+      if (userRepository.findFollowerCountById(followeeId) == celebrityThreshold - 1) {
+        postRepository.fanOutRecentPosts(followeeId, celebrityPostsPerAuthor);
+      }
+    }
+  }
+}
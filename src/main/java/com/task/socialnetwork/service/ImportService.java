@@ -0,0 +1,342 @@
+package com.task.socialnetwork.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task.socialnetwork.dto.ImportPostDTO;
+import com.task.socialnetwork.dto.ImportPostDTO.ImportCommentDTO;
+import com.task.socialnetwork.dto.ImportReportDTO;
+import com.task.socialnetwork.event.PostLikeToggledEvent;
+import com.task.socialnetwork.event.PostLikesFlushedEvent;
+import com.task.socialnetwork.repository.PostLikeBatchRepository;
+import com.task.socialnetwork.repository.PostLikeBatchRepository.LikeWrite;
+import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.service.BulkInsertService.NewComment;
+import com.task.socialnetwork.service.BulkInsertService.NewPost;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Imports posts, with their comments and likes, from a stream of newline-delimited JSON.
+ *
+ * <p>Lines are read one at a time from the request body and written in batches of
+ * {@code import.batch-size} lines, one transaction per batch. The next line is only read once
+ * the previous batch is committed, so a fast client is held back by the socket rather than
+ * buffered in memory. Lines longer than {@code import.max-line-bytes} end the import as soon
+ * as the limit is crossed, before the line is parsed, so memory use depends on the batch size and
+ * the line limit alone. A line that fails validation is rejected on its own; a syntax error ends
+ * the import, since nothing after it can be parsed reliably.
+ *
+ * <p>Likes take the time of their post, so imported history does not show up as fresh
+ * engagement, and are announced like a write-behind flush so statistics and in-memory rankings
+ * follow.
+ */
+@Slf4j
+@Service
+public class ImportService {
+  private static final int MAX_REPORTED_ERRORS = 100;
+
+  private final ObjectMapper objectMapper;
+  private final BulkInsertService bulkInsertService;
+  private final PostLikeBatchRepository likeBatchRepository;
+  private final UserRepository userRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxNestedPerPost;
+  private final int maxLineBytes;
+
+  private record Line(long number, ImportPostDTO post) {
+  }
+
+  public ImportService(ObjectMapper objectMapper, BulkInsertService bulkInsertService,
+                       PostLikeBatchRepository likeBatchRepository, UserRepository userRepository,
+                       ApplicationEventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${import.batch-size}") int batchSize,
+                       @Value("${import.max-nested-per-post}") int maxNestedPerPost,
+                       @Value("${import.max-line-bytes}") int maxLineBytes) {
+    this.objectMapper = objectMapper;
+    this.bulkInsertService = bulkInsertService;
+    this.likeBatchRepository = likeBatchRepository;
+    this.userRepository = userRepository;
+    this.eventPublisher = eventPublisher;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.maxNestedPerPost = maxNestedPerPost;
+    this.maxLineBytes = maxLineBytes;
+  }
+
+  public ImportReportDTO importPosts(InputStream input) throws IOException {
+    long start = System.nanoTime();
+    ImportReportDTO report = new ImportReportDTO();
+    List<Line> batch = new ArrayList<>(batchSize);
+    try (MappingIterator<ImportPostDTO> lines = objectMapper.readerFor(ImportPostDTO.class)
+        .readValues(new LineLimitInputStream(input, maxLineBytes))) {
+      while (true) {
+        ImportPostDTO post;
+        try {
+          if (!lines.hasNextValue()) {
+            break;
+          }
+          post = lines.nextValue();
+        } catch (LineTooLongException e) {
+          report.setLinesRead(report.getLinesRead() + 1);
+          reject(report, e.getLineNumber(), e.getMessage());
+          report.setAborted(true);
+          break;
+        } catch (JsonParseException e) {
+          report.setLinesRead(report.getLinesRead() + 1);
+          reject(report, e.getLocation().getLineNr(), "Malformed JSON: " + e.getOriginalMessage());
+          report.setAborted(true);
+          break;
+        } catch (JsonMappingException e) {
+          // The iterator skips the rest of the line, so the following lines are still readable
+          report.setLinesRead(report.getLinesRead() + 1);
+          reject(report, lines.getCurrentLocation().getLineNr(), e.getOriginalMessage());
+          continue;
+        }
+        report.setLinesRead(report.getLinesRead() + 1);
+        long lineNumber = lines.getCurrentLocation().getLineNr();
+        String error = validate(post);
+        if (error != null) {
+          reject(report, lineNumber, error);
+          continue;
+        }
+        batch.add(new Line(lineNumber, post));
+        if (batch.size() == batchSize) {
+          writeBatch(batch, report);
+          batch.clear();
+        }
+      }
+    }
+    writeBatch(batch, report);
+
+    long elapsedNanos = Math.max(1, System.nanoTime() - start);
+    long rows = report.getPostsImported() + report.getCommentsImported()
+        + report.getLikesImported();
+    report.setDurationMillis(elapsedNanos / 1_000_000);
+    report.setRowsPerSecond(rows * 1_000_000_000.0 / elapsedNanos);
+    log.info("Imported {} posts, {} comments and {} likes in {} ms ({} rows/s), rejected {} lines",
+        report.getPostsImported(), report.getCommentsImported(), report.getLikesImported(),
+        report.getDurationMillis(), Math.round(report.getRowsPerSecond()),
+        report.getLinesRejected());
+    return report;
+  }
+
+  private String validate(ImportPostDTO post) {
+    if (post == null) {
+      return "Empty line";
+    }
+    if (post.getAuthorId() == null) {
+      return "authorId is required";
+    }
+    if (post.getContent() == null || post.getContent().isBlank()) {
+      return "content is required";
+    }
+    List<ImportCommentDTO> comments = nestedComments(post);
+    List<Long> likes = nestedLikes(post);
+    if (comments.size() + likes.size() > maxNestedPerPost) {
+      return "At most " + maxNestedPerPost + " comments and likes per post";
+    }
+    for (ImportCommentDTO comment : comments) {
+      if (comment == null || comment.getUserId() == null) {
+        return "Every comment needs a userId";
+      }
+      if (comment.getContent() == null || comment.getContent().isBlank()) {
+        return "Every comment needs content";
+      }
+    }
+    if (likes.contains(null)) {
+      return "likes must only contain user ids";
+    }
+    return null;
+  }
+
+  private void writeBatch(List<Line> batch, ImportReportDTO report) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    // Users are checked for the whole batch at once; a line naming an unknown one is rejected
+    Set<Long> referenced = new HashSet<>();
+    for (Line line : batch) {
+      referenced.add(line.post().getAuthorId());
+      nestedComments(line.post()).forEach(comment -> referenced.add(comment.getUserId()));
+      referenced.addAll(nestedLikes(line.post()));
+    }
+    Set<Long> existing = new HashSet<>(userRepository.findExistingIds(referenced));
+    List<Line> accepted = new ArrayList<>(batch.size());
+    for (Line line : batch) {
+      Long unknown = firstUnknownUser(line.post(), existing);
+      if (unknown != null) {
+        reject(report, line.number(), "Unknown user " + unknown);
+      } else {
+        accepted.add(line);
+      }
+    }
+    if (accepted.isEmpty()) {
+      return;
+    }
+
+    transactionTemplate.executeWithoutResult(status -> {
+      LocalDateTime now = LocalDateTime.now();
+      List<Long> postIds = bulkInsertService.insertPosts(accepted.stream()
+          .map(line -> new NewPost(line.post().getAuthorId(), line.post().getContent(),
+              line.post().getCreatedAt() != null ? line.post().getCreatedAt() : now))
+          .toList());
+
+      List<NewComment> comments = new ArrayList<>();
+      List<LikeWrite> likes = new ArrayList<>();
+      List<Long> likeAuthors = new ArrayList<>();
+      for (int i = 0; i < accepted.size(); i++) {
+        Long postId = postIds.get(i);
+        ImportPostDTO post = accepted.get(i).post();
+        for (ImportCommentDTO comment : nestedComments(post)) {
+          comments.add(new NewComment(postId, comment.getUserId(), comment.getContent(),
+              comment.getCreatedAt() != null ? comment.getCreatedAt() : now));
+        }
+        LocalDateTime likedAt = post.getCreatedAt() != null ? post.getCreatedAt() : now;
+        for (Long userId : new HashSet<>(nestedLikes(post))) {
+          likes.add(new LikeWrite(postId, userId, true, likedAt));
+          likeAuthors.add(post.getAuthorId());
+        }
+      }
+      bulkInsertService.insertComments(comments);
+      long likesImported = writeLikes(likes, likeAuthors);
+
+      report.setPostsImported(report.getPostsImported() + postIds.size());
+      report.setCommentsImported(report.getCommentsImported() + comments.size());
+      report.setLikesImported(report.getLikesImported() + likesImported);
+    });
+  }
+
+  // Counters move once per post; statistics and rankings follow from one event per batch
+  private long writeLikes(List<LikeWrite> likes, List<Long> likeAuthors) {
+    if (likes.isEmpty()) {
+      return 0;
+    }
+    LocalDateTime[] changed = likeBatchRepository.applyAll(likes, batchSize);
+    List<PostLikeToggledEvent> written = new ArrayList<>();
+    for (int i = 0; i < likes.size(); i++) {
+      if (changed[i] != null) {
+        LikeWrite like = likes.get(i);
+        written.add(new PostLikeToggledEvent(like.postId(), likeAuthors.get(i), like.userId(),
+            true, changed[i]));
+      }
+    }
+    PostLikesFlushedEvent event = PostLikesFlushedEvent.of(written);
+    likeBatchRepository.adjustLikeCounts(event.getLikesByPost(), batchSize);
+    if (!written.isEmpty()) {
+      eventPublisher.publishEvent(event);
+    }
+    return written.size();
+  }
+
+  private static Long firstUnknownUser(ImportPostDTO post, Set<Long> existing) {
+    if (!existing.contains(post.getAuthorId())) {
+      return post.getAuthorId();
+    }
+    for (ImportCommentDTO comment : nestedComments(post)) {
+      if (!existing.contains(comment.getUserId())) {
+        return comment.getUserId();
+      }
+    }
+    for (Long userId : nestedLikes(post)) {
+      if (!existing.contains(userId)) {
+        return userId;
+      }
+    }
+    return null;
+  }
+
+  private static List<ImportCommentDTO> nestedComments(ImportPostDTO post) {
+    return post.getComments() != null ? post.getComments() : List.of();
+  }
+
+  private static List<Long> nestedLikes(ImportPostDTO post) {
+    return post.getLikes() != null ? post.getLikes() : List.of();
+  }
+
+  private static void reject(ImportReportDTO report, long lineNumber, String message) {
+    report.setLinesRejected(report.getLinesRejected() + 1);
+    if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+      report.getErrors().add("Line " + lineNumber + ": " + message);
+    }
+  }
+
+  /**
+   * Counts the bytes of the current line and fails the read that would take it past the limit.
+   * The bytes before that point are still handed out, so the lines completed before it parse.
+   */
+  private static final class LineLimitInputStream extends FilterInputStream {
+    private final int maxLineBytes;
+    private long lineNumber = 1;
+    private int lineBytes;
+    private boolean exceeded;
+
+    LineLimitInputStream(InputStream in, int maxLineBytes) {
+      super(in);
+      this.maxLineBytes = maxLineBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      int read = read(single, 0, 1);
+      return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (exceeded) {
+        throw new LineTooLongException(lineNumber, maxLineBytes);
+      }
+      int read = in.read(buffer, offset, length);
+      for (int i = 0; i < read; i++) {
+        if (buffer[offset + i] == '\n') {
+          lineNumber++;
+          lineBytes = 0;
+        } else if (++lineBytes > maxLineBytes) {
+          exceeded = true;
+          if (i == 0) {
+            throw new LineTooLongException(lineNumber, maxLineBytes);
+          }
+          return i;
+        }
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      // Skipped bytes would not be counted
+      return Math.max(0, read(new byte[(int) Math.min(n, 8192)]));
+    }
+  }
+
+  private static final class LineTooLongException extends IOException {
+    private final long lineNumber;
+
+    LineTooLongException(long lineNumber, int maxLineBytes) {
+      super("Line is longer than " + maxLineBytes + " bytes");
+      this.lineNumber = lineNumber;
+    }
+
+    long getLineNumber() {
+      return lineNumber;
+    }
+  }
+}
@@ -1,16 +1,34 @@
 package com.task.socialnetwork.service;
 
+import com.task.socialnetwork.model.CustomUserDetails;
+import com.task.socialnetwork.model.TokenClaims;
+import com.task.socialnetwork.model.User;
+import com.task.socialnetwork.util.ExpiringLruCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import javax.crypto.spec.SecretKeySpec;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 @Service
 public class JwtService {
+  private static final String ROLE_CLAIM = "role";
+  private static final String USER_ID_CLAIM = "uid";
+  private static final String TOKEN_VERSION_CLAIM = "ver";
 
   @Value("${jwt.secret}")
   private String secret;
@@ -18,72 +36,105 @@ public class JwtService {
   @Value("${jwt.expiration}")
   private long expiration;
 
+  @Value("${jwt.verified-cache-size}")
+  private int verifiedCacheSize;
+
+  private Key signingKey;
+  private JwtParser parser;
+  // Claims of recently verified tokens, keyed by the token's SHA-256 and kept until it expires
+  private ExpiringLruCache<String, TokenClaims> verifiedTokens;
+
   /**
-   * Generates a signing key using the configured secret.
-   *
-   * @return A Key instance for signing JWTs.
+   * Builds the signing key and the parser once, they are immutable and thread-safe.
    */
-  private Key getSigningKey() {
-    byte[] keyBytes = io.jsonwebtoken.io.Decoders.BASE64.decode(secret); // Decode the Base64 secret
-    return new SecretKeySpec(keyBytes, SignatureAlgorithm.HS256.getJcaName());
+  @PostConstruct
+  void init() {
+    byte[] keyBytes = Decoders.BASE64.decode(secret); // Decode the Base64 secret
+    signingKey = new SecretKeySpec(keyBytes, SignatureAlgorithm.HS256.getJcaName());
+    parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    verifiedTokens = new ExpiringLruCache<>(verifiedCacheSize);
   }
 
   /**
-   * Generates a JWT token for the given user details.
+   * Generates a JWT token for the given user details. Application users also get their id and
+   * current token version embedded, which lets the stateless mode skip the user lookup.
    *
    * @param userDetails The user's details.
    * @return A signed JWT token.
    */
   public String generateToken(UserDetails userDetails) {
-    return Jwts.builder()
+    String role = userDetails.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority)
+        .findFirst()
+        .orElse(null);
+    JwtBuilder builder = Jwts.builder()
         .setSubject(userDetails.getUsername())
+        .claim(ROLE_CLAIM, role);
+    if (userDetails instanceof CustomUserDetails customUserDetails) {
+      User user = customUserDetails.getUser();
+      builder.claim(USER_ID_CLAIM, user.getId())
+          .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+    }
+    return builder
         .setIssuedAt(new Date())
         .setExpiration(new Date(
             System.currentTimeMillis() + expiration)) // Use expiration value from properties.
-        .signWith(getSigningKey(), SignatureAlgorithm.HS256) // Sign using the generated key.
+        .signWith(signingKey, SignatureAlgorithm.HS256) // Sign using the cached key.
         .compact();
   }
 
   /**
-   * Extracts the username from a JWT token.
+   * Parses and verifies a JWT token. Each distinct token is verified once; repeated calls with
+   * the same token are answered from memory until it expires.
    *
    * @param token The JWT token.
-   * @return The username extracted from the token.
+   * @return The verified claims, or null if the token is malformed, forged or expired.
    */
-  public String extractUsername(String token) {
-    return Jwts.parserBuilder()
-        .setSigningKey(getSigningKey())
-        .build()
-        .parseClaimsJws(token)
-        .getBody()
-        .getSubject();
+  public TokenClaims parseToken(String token) {
+    String cacheKey = hash(token);
+    TokenClaims cached = verifiedTokens.get(cacheKey);
+    if (cached != null) {
+      return cached;
+    }
+    try {
+      Claims claims = parser.parseClaimsJws(token).getBody(); // Rejects expired tokens too
+      if (claims.getSubject() == null || claims.getExpiration() == null) {
+        return null;
+      }
+      TokenClaims verified = new TokenClaims(claims.getSubject(),
+          claims.getExpiration().toInstant(), claims.get(ROLE_CLAIM, String.class),
+          claims.get(USER_ID_CLAIM, Long.class), claims.get(TOKEN_VERSION_CLAIM, Integer.class));
+      verifiedTokens.put(cacheKey, verified, verified.getExpiresAt().toEpochMilli());
+      return verified;
+    } catch (JwtException | IllegalArgumentException e) {
+      return null;
+    }
   }
 
   /**
-   * Validates a JWT token.
+   * Validates verified token claims against the loaded user. Tokens carrying a token version
+   * are rejected once the user's version has moved on.
    *
-   * @param token       The token to validate.
+   * @param claims      The claims returned by {@link #parseToken}.
    * @param userDetails The user's details for comparison.
    * @return True if the token is valid, false otherwise.
    */
-  public boolean validateToken(String token, UserDetails userDetails) {
-    final String username = extractUsername(token);
-    return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+  public boolean validateToken(TokenClaims claims, UserDetails userDetails) {
+    if (claims.getTokenVersion() != null
+        && userDetails instanceof CustomUserDetails customUserDetails
+        && customUserDetails.getUser().getTokenVersion() != claims.getTokenVersion()) {
+      return false;
+    }
+    return claims.getSubject().equals(userDetails.getUsername()) && !claims.isExpired();
   }
 
-  /**
-   * Checks if a token has expired.
-   *
-   * @param token The token to check.
-   * @return True if the token has expired, false otherwise.
-   */
-  private boolean isTokenExpired(String token) {
-    final Date expirationDate = Jwts.parserBuilder()
-        .setSigningKey(getSigningKey())
-        .build()
-        .parseClaimsJws(token)
-        .getBody()
-        .getExpiration();
-    return expirationDate.before(new Date());
+  private static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
   }
-}
\ No newline at end of file
+}
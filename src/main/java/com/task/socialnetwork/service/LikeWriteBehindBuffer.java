@@ -0,0 +1,383 @@
+package com.task.socialnetwork.service;
+
+import com.task.socialnetwork.error.ServiceUnavailableException;
+import com.task.socialnetwork.event.PostLikeToggledEvent;
+import com.task.socialnetwork.event.PostLikesFlushedEvent;
+import com.task.socialnetwork.repository.PostLikeBatchRepository;
+import com.task.socialnetwork.repository.PostLikeBatchRepository.LikeWrite;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind path for like toggles, used when {@code likes.write-behind.enabled} is set.
+ *
+ * <p>A toggle only updates the pending state of its (post, user) pair in memory and appends it
+ * to a journal, so the caller sees the result without a database write. Repeated toggles of a
+ * pair collapse into the latest state. A scheduled flush writes every pending state to
+ * post_likes in JDBC batches within one transaction, adjusts the like counters and publishes one
+ * event with the likes that really changed. The journal is cut into a new segment at each flush
+ * and old segments are deleted once their states are committed. A toggle returns only after its
+ * record is forced to disk; concurrent toggles share a force. Segments left behind by a crash
+ * are loaded back at startup and written by the next flush; shutdown flushes whatever is still
+ * pending. The journal directory has to be configured explicitly and must survive a restart.
+ */
+@Slf4j
+@Service
+public class LikeWriteBehindBuffer {
+  private static final String SATURATED = "Too many likes pending, please retry shortly";
+  private static final String SEGMENT_PREFIX = "likes-";
+  private static final String SEGMENT_SUFFIX = ".journal";
+  private static final int LOCK_STRIPES = 64;
+
+  private final PostLikeBatchRepository likeBatchRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int capacity;
+  private final int batchSize;
+  private final Path journalDir;
+  private final Counter rejected;
+
+  private final Map<LikeKey, PendingLike> pending = new ConcurrentHashMap<>();
+  // Net like count change per post that is still pending
+  private final Map<Long, Long> pendingDeltas = new ConcurrentHashMap<>();
+  // Serializes toggles of the same pair
+  private final Object[] stripes = new Object[LOCK_STRIPES];
+  // Toggles hold the read lock, a flush takes the write lock to snapshot and cut the journal
+  private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+  private final Object flushLock = new Object();
+  // Replaced under the rotation write lock, appends synchronize on the channel
+  private FileChannel journal;
+  private long segment;
+  // Bytes appended to and forced in the current segment, reset with it
+  private volatile long appendedBytes;
+  private long forcedBytes; // Guarded by forceLock
+  private final Object forceLock = new Object();
+
+  private record LikeKey(long postId, long userId) {
+  }
+
+  // persisted is the state in post_likes when the pair was first buffered or last flushed
+  private record PendingLike(long authorId, boolean liked, boolean persisted,
+                             LocalDateTime toggledAt) {
+    long countDelta() {
+      return (liked ? 1 : 0) - (persisted ? 1 : 0);
+    }
+  }
+
+  public LikeWriteBehindBuffer(PostLikeBatchRepository likeBatchRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${likes.write-behind.enabled}") boolean enabled,
+                               @Value("${likes.write-behind.capacity}") int capacity,
+                               @Value("${likes.write-behind.batch-size}") int batchSize,
+                               @Value("${likes.write-behind.journal-dir}") String journalDir) {
+    this.likeBatchRepository = likeBatchRepository;
+    this.eventPublisher = eventPublisher;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.journalDir = journalDir.isBlank() ? null : Path.of(journalDir);
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      stripes[i] = new Object();
+    }
+
+    Gauge.builder("likes.write-behind.pending", pending, Map::size).register(meterRegistry);
+    this.rejected = Counter.builder("likes.write-behind.rejected").register(meterRegistry);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Toggles the user's like on the post and returns the new state.
+   *
+   * @throws ServiceUnavailableException when the buffer is full until the next flush.
+   */
+  public boolean toggle(long postId, long authorId, long userId) {
+    LikeKey key = new LikeKey(postId, userId);
+    rotationLock.readLock().lock();
+    try {
+      synchronized (stripe(key)) {
+        PendingLike current = pending.get(key);
+        if (current == null && pending.size() >= capacity) {
+          rejected.increment();
+          throw new ServiceUnavailableException(SATURATED);
+        }
+        boolean persisted = current != null
+            ? current.persisted()
+            : likeBatchRepository.exists(postId, userId);
+        boolean liked = current != null ? !current.liked() : !persisted;
+        PendingLike next = new PendingLike(authorId, liked, persisted, LocalDateTime.now());
+        appendToJournal(key, next);
+        replace(key, current, next);
+        return liked;
+      }
+    } finally {
+      rotationLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the pending state of the user's like on the post, or null when nothing is pending.
+   */
+  public Boolean pendingState(long postId, long userId) {
+    PendingLike like = pending.get(new LikeKey(postId, userId));
+    return like != null ? like.liked() : null;
+  }
+
+  /**
+   * Returns how far the post's like count will move once the pending likes are written. Right
+   * after a flush commits the change may briefly be counted both here and in the table.
+   */
+  public long pendingDelta(long postId) {
+    return pendingDeltas.getOrDefault(postId, 0L);
+  }
+
+  @Scheduled(fixedDelayString = "${likes.write-behind.flush-interval}")
+  public void flush() {
+    if (!enabled) {
+      return;
+    }
+    synchronized (flushLock) {
+      Map<LikeKey, PendingLike> snapshot;
+      long flushedSegment;
+      rotationLock.writeLock().lock();
+      try {
+        if (pending.isEmpty()) {
+          return;
+        }
+        snapshot = new HashMap<>(pending);
+        flushedSegment = segment;
+        openSegment(segment + 1);
+      } finally {
+        rotationLock.writeLock().unlock();
+      }
+
+      List<LikeKey> keys = new ArrayList<>(snapshot.keySet());
+      List<LikeWrite> writes = keys.stream()
+          .map(key -> {
+            PendingLike like = snapshot.get(key);
+            return new LikeWrite(key.postId(), key.userId(), like.liked(), like.toggledAt());
+          })
+          .toList();
+      transactionTemplate.executeWithoutResult(status -> {
+        LocalDateTime[] changed = likeBatchRepository.applyAll(writes, batchSize);
+        List<PostLikeToggledEvent> likes = new ArrayList<>();
+        for (int i = 0; i < writes.size(); i++) {
+          if (changed[i] != null) {
+            LikeWrite write = writes.get(i);
+            likes.add(new PostLikeToggledEvent(write.postId(),
+                snapshot.get(keys.get(i)).authorId(), write.userId(), write.liked(), changed[i]));
+          }
+        }
+        PostLikesFlushedEvent flushed = PostLikesFlushedEvent.of(likes);
+        likeBatchRepository.adjustLikeCounts(flushed.getLikesByPost(), batchSize);
+        // One event for the whole flush, so listeners write their own batches too
+        if (!likes.isEmpty()) {
+          eventPublisher.publishEvent(flushed);
+        }
+      });
+
+      // Pairs toggled again since the snapshot stay pending, now relative to the flushed state
+      for (LikeKey key : keys) {
+        synchronized (stripe(key)) {
+          PendingLike flushed = snapshot.get(key);
+          PendingLike current = pending.get(key);
+          PendingLike next = current == flushed ? null : new PendingLike(current.authorId(),
+              current.liked(), flushed.liked(), current.toggledAt());
+          replace(key, current, next);
+        }
+      }
+      deleteSegmentsUpTo(flushedSegment);
+      log.debug("Flushed {} pending likes", writes.size());
+    }
+  }
+
+  /**
+   * Loads the states of journal segments left by a previous run, which did not get to flush
+   * them, and starts a new segment.
+   */
+  @PostConstruct
+  public void recover() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    if (journalDir == null) {
+      throw new IllegalStateException("likes.write-behind.journal-dir must point to a "
+          + "persistent directory when the write-behind buffer is enabled");
+    }
+    Files.createDirectories(journalDir);
+    List<Long> segments = listSegments();
+    for (long existing : segments) {
+      for (String line : Files.readAllLines(segmentPath(existing), StandardCharsets.UTF_8)) {
+        replay(line);
+      }
+    }
+    openSegment(segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1);
+    if (!pending.isEmpty()) {
+      log.info("Recovered {} pending likes from {} journal segments", pending.size(),
+          segments.size());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    flush();
+    synchronized (flushLock) {
+      rotationLock.writeLock().lock();
+      try {
+        journal.close();
+      } finally {
+        rotationLock.writeLock().unlock();
+      }
+    }
+  }
+
+  private void replay(String line) {
+    String[] fields = line.split(",");
+    try {
+      if (fields.length != 5) {
+        throw new IllegalArgumentException("Expected 5 fields");
+      }
+      LikeKey key = new LikeKey(Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+      PendingLike current = pending.get(key);
+      boolean persisted = current != null
+          ? current.persisted()
+          : likeBatchRepository.exists(key.postId(), key.userId());
+      replace(key, current, new PendingLike(Long.parseLong(fields[2]), "1".equals(fields[3]),
+          persisted, LocalDateTime.parse(fields[4])));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      // Only the record being written when the process died can be torn
+      log.warn("Skipping unreadable like journal record '{}'", line);
+    }
+  }
+
+  // Caller holds the stripe lock of the key
+  private void replace(LikeKey key, PendingLike current, PendingLike next) {
+    if (next == null) {
+      pending.remove(key);
+    } else {
+      pending.put(key, next);
+    }
+    long change = (next != null ? next.countDelta() : 0)
+        - (current != null ? current.countDelta() : 0);
+    if (change != 0) {
+      pendingDeltas.compute(key.postId(), (postId, delta) -> {
+        long updated = (delta != null ? delta : 0) + change;
+        return updated == 0 ? null : updated;
+      });
+    }
+  }
+
+  private void appendToJournal(LikeKey key, PendingLike like) {
+    String record = key.postId() + "," + key.userId() + "," + like.authorId() + ","
+        + (like.liked() ? "1" : "0") + "," + like.toggledAt() + "\n";
+    ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+    FileChannel channel = journal;
+    try {
+      long end;
+      synchronized (channel) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        end = appendedBytes += buffer.limit();
+      }
+      // Group commit: one force covers every record appended before it started
+      synchronized (forceLock) {
+        if (forcedBytes < end) {
+          long target = appendedBytes;
+          channel.force(false);
+          forcedBytes = target;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write the like journal", e);
+    }
+  }
+
+  // Caller holds the rotation write lock, or runs before any toggle
+  private void openSegment(long next) {
+    try {
+      FileChannel previous = journal;
+      journal = FileChannel.open(segmentPath(next), StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      segment = next;
+      appendedBytes = 0;
+      synchronized (forceLock) {
+        forcedBytes = 0;
+      }
+      if (previous != null) {
+        previous.close();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not open like journal segment " + next, e);
+    }
+  }
+
+  private void deleteSegmentsUpTo(long last) {
+    try {
+      for (long existing : listSegments()) {
+        if (existing <= last) {
+          Files.deleteIfExists(segmentPath(existing));
+        }
+      }
+    } catch (IOException e) {
+      // Retried after the next flush, which deletes every segment up to its own
+      log.warn("Could not delete flushed like journal segments", e);
+    }
+  }
+
+  private List<Long> listSegments() throws IOException {
+    try (Stream<Path> files = Files.list(journalDir)) {
+      return files.map(path -> path.getFileName().toString())
+          .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+          .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+              name.length() - SEGMENT_SUFFIX.length())))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private Path segmentPath(long number) {
+    return journalDir.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+  }
+
+  private Object stripe(LikeKey key) {
+    return stripes[Math.floorMod(key.hashCode(), LOCK_STRIPES)];
+  }
+}
@@ -1,73 +1,327 @@
 package com.task.socialnetwork.service;
 
+import static com.task.socialnetwork.util.PaginationUtil.decodeCursor;
+import static com.task.socialnetwork.util.PaginationUtil.encodeCursor;
+import static com.task.socialnetwork.util.PaginationUtil.parseDoublePart;
+import static com.task.socialnetwork.util.PaginationUtil.parseLongPart;
+import static com.task.socialnetwork.util.PaginationUtil.parseTimestampPart;
+import static com.task.socialnetwork.util.PaginationUtil.resolvePageSize;
+
 import com.task.socialnetwork.dto.AddCommentDTO;
 import com.task.socialnetwork.dto.CommentDTO;
+import com.task.socialnetwork.dto.CursorPageDTO;
+import com.task.socialnetwork.dto.LikerDTO;
+import com.task.socialnetwork.dto.LikeResponseDTO;
 import com.task.socialnetwork.dto.PostResponseDTO;
 import com.task.socialnetwork.error.UnauthorizedException;
+import com.task.socialnetwork.event.CommentAddedEvent;
+import com.task.socialnetwork.event.PostCreatedEvent;
+import com.task.socialnetwork.event.PostDeletedEvent;
+import com.task.socialnetwork.event.PostLikeToggledEvent;
 import com.task.socialnetwork.mapper.CommentMapper;
 import com.task.socialnetwork.mapper.PostMapper;
+import com.task.socialnetwork.mapper.UserMapper;
 import com.task.socialnetwork.model.Comment;
 import com.task.socialnetwork.model.FilterType;
 import com.task.socialnetwork.model.Post;
 import com.task.socialnetwork.model.User;
 import com.task.socialnetwork.repository.CommentRepository;
+import com.task.socialnetwork.repository.PostLikeBatchRepository;
 import com.task.socialnetwork.repository.PostRepository;
+import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.repository.projection.CommentView;
+import com.task.socialnetwork.repository.projection.PostImageView;
+import com.task.socialnetwork.repository.projection.PostView;
+import com.task.socialnetwork.service.CelebrityPostCache.RecentPost;
+import com.task.socialnetwork.service.TrendingEngine.Ranked;
+import com.task.socialnetwork.service.TrendingEngine.RankedPage;
+import com.task.socialnetwork.storage.BlobStore;
+import com.task.socialnetwork.storage.ImageProcessingService;
+import com.task.socialnetwork.storage.ImageUploadService;
+import com.task.socialnetwork.storage.ImageVariant;
+import com.task.socialnetwork.storage.StoredImage;
+import com.task.socialnetwork.storage.UploadedImage;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
 @Service
 @RequiredArgsConstructor
 public class PostService {
+  private static final String TIMELINE_CURSOR = "TIMELINE";
+  private static final String COMMENTS_CURSOR = "COMMENTS";
+  private static final String LIKES_CURSOR = "LIKES";
+  private static final Comparator<RecentPost> NEWEST_FIRST = RecentPost.NEWEST_FIRST;
+
   private final PostRepository postRepository;
   private final CommentRepository commentRepository;
   private final PostMapper postMapper;
   private final CommentMapper commentMapper;
+  private final UserMapper userMapper;
+  private final BlobStore blobStore;
+  private final ImageUploadService imageUploadService;
+  private final ImageProcessingService imageProcessingService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TrendingEngine trendingEngine;
+  private final UserRepository userRepository;
+  private final CelebrityPostCache celebrityPostCache;
+  private final LikeWriteBehindBuffer likeWriteBehindBuffer;
+  private final PostLikeBatchRepository likeBatchRepository;
+  private final ViewerStateResolver viewerStateResolver;
+
+  @Value("${pagination.default-size}")
+  private int defaultPageSize;
+
+  @Value("${pagination.max-size}")
+  private int maxPageSize;
+
+  @Value("${timeline.celebrity-threshold}")
+  private int celebrityThreshold;
+
+  @Value("${comments.preview-size}")
+  private int commentPreviewSize;
 
   @Transactional
-  public PostResponseDTO createPost(String content, byte[] imageData, User user) {
+  public PostResponseDTO createPost(String content, MultipartFile imageFile, User user)
+      throws IOException {
     if (user == null) {
       throw new IllegalArgumentException("User cannot be null");
     }
     Post post = new Post();
     post.setContent(content);
-    post.setImageData(imageData);
+    boolean imageAttached = attachImage(post, imageFile);
     post.setUser(user); // Set the user explicitly
     postRepository.save(post);
-    return postMapper.toResponseDTO(post);
+    postRepository.fanOutToFollowers(post.getId(), user.getId(), post.getCreatedAt(),
+        celebrityThreshold);
+    if (imageAttached) {
+      imageProcessingService.scheduleVariants(post.getId(), post.getImageKey());
+    }
+    eventPublisher.publishEvent(
+        new PostCreatedEvent(post.getId(), user.getId(), post.getCreatedAt()));
+    return toResponseDTO(post, user.getId());
   }
 
   @Transactional
-  public List<PostResponseDTO> getNewsFeed(FilterType filter) {
+  public CursorPageDTO<PostResponseDTO> getNewsFeed(FilterType filter, String cursor,
+                                                    Integer size, Long viewerId) {
+    int pageSize = resolvePageSize(size, defaultPageSize, maxPageSize);
+    if (filter == FilterType.TRENDING) {
+      return getTrendingFeed(cursor, pageSize, viewerId);
+    }
+    // Fetch one extra row to know whether another page follows
+    int limit = pageSize + 1;
+    List<PostView> posts;
     switch (filter) {
       case POPULARITY:
-        return postRepository.findAllByPopularity()
-            .stream()
-            .map(postMapper::toResponseDTO)
-            .toList();
+        if (cursor == null) {
+          posts = postRepository.findFeedByPopularity(limit);
+        } else {
+          String[] parts = decodeFeedCursor(cursor, filter, 3);
+          posts = postRepository.findFeedByPopularityBefore(parseLongPart(parts[1]),
+              parseLongPart(parts[2]), limit);
+        }
+        break;
       case TIME:
       default:
-        return postRepository.findAllByTime()
-            .stream()
-            .map(postMapper::toResponseDTO)
-            .toList();
+        if (cursor == null) {
+          posts = postRepository.findFeedByTime(limit);
+        } else {
+          String[] parts = decodeFeedCursor(cursor, filter, 3);
+          posts = postRepository.findFeedByTimeBefore(parseTimestampPart(parts[1]),
+              parseLongPart(parts[2]), limit);
+        }
+        break;
     }
+
+    boolean hasMore = posts.size() > pageSize;
+    List<PostView> page = hasMore ? posts.subList(0, pageSize) : posts;
+    String nextCursor = hasMore ? encodeFeedCursor(filter, page.get(page.size() - 1)) : null;
+    return new CursorPageDTO<>(toResponseDTOs(page, viewerId), nextCursor, hasMore);
   }
 
+  private String encodeFeedCursor(FilterType filter, PostView last) {
+    Object sortKey = filter == FilterType.POPULARITY ? last.getLikeCount() : last.getCreatedAt();
+    return encodeCursor(filter.name(), sortKey, last.getId());
+  }
+
+  /**
+   * Returns a page of the user's home timeline: their own posts and those of the users they
+   * follow, newest first. Posts are read from the precomputed timeline table, except those of
+   * followed accounts above the fan-out threshold, which are merged in from their recent posts.
+   */
   @Transactional
-  public void likePost(Long postId, User user) {
-    Post post = postRepository.findById(postId)
+  public CursorPageDTO<PostResponseDTO> getHomeTimeline(Long userId, String cursor,
+                                                        Integer size) {
+    int pageSize = resolvePageSize(size, defaultPageSize, maxPageSize);
+    int limit = pageSize + 1;
+    LocalDateTime beforeCreatedAt = null;
+    long beforeId = 0;
+    List<PostView> stored;
+    if (cursor == null) {
+      stored = postRepository.findTimeline(userId, limit);
+    } else {
+      String[] parts = decodeCursor(cursor, 3);
+      if (!TIMELINE_CURSOR.equals(parts[0])) {
+        throw new IllegalArgumentException("Cursor does not belong to the home timeline");
+      }
+      beforeCreatedAt = parseTimestampPart(parts[1]);
+      beforeId = parseLongPart(parts[2]);
+      stored = postRepository.findTimelineBefore(userId, beforeCreatedAt, beforeId, limit);
+    }
+
+    RecentPost before = beforeCreatedAt != null ? new RecentPost(beforeId, beforeCreatedAt) : null;
+    List<List<RecentPost>> sources = new ArrayList<>();
+    sources.add(stored.stream().map(post -> new RecentPost(post.getId(), post.getCreatedAt()))
+        .toList());
+    for (Long authorId : userRepository.findFollowedAccountsWithFollowersAtLeast(userId,
+        celebrityThreshold)) {
+      sources.add(celebrityPostCache.postsBefore(authorId, before, limit));
+    }
+    List<RecentPost> merged = mergeNewestFirst(sources, limit);
+
+    boolean hasMore = merged.size() > pageSize;
+    List<RecentPost> page = hasMore ? merged.subList(0, pageSize) : merged;
+    Map<Long, PostView> postsById = stored.stream()
+        .collect(Collectors.toMap(PostView::getId, Function.identity()));
+    List<Long> missing = page.stream().map(RecentPost::postId)
+        .filter(id -> !postsById.containsKey(id)).toList();
+    if (!missing.isEmpty()) {
+      postRepository.findViewsByIdIn(missing).forEach(post -> postsById.put(post.getId(), post));
+    }
+    List<PostView> posts = new ArrayList<>(page.size());
+    for (RecentPost entry : page) {
+      PostView post = postsById.get(entry.postId());
+      if (post != null) { // Cached entries can outlive a post deleted on another node
+        posts.add(post);
+      }
+    }
+    String nextCursor = null;
+    if (hasMore) {
+      RecentPost last = page.get(page.size() - 1);
+      nextCursor = encodeCursor(TIMELINE_CURSOR, last.createdAt(), last.postId());
+    }
+    return new CursorPageDTO<>(toResponseDTOs(posts, userId), nextCursor, hasMore);
+  }
+
+  // K-way merge of newest-first sources. A post delivered through more than one source (fanned
+  // out before its author crossed the threshold) has equal keys everywhere, so its copies come
+  // out next to each other and only the first is kept.
+  private static List<RecentPost> mergeNewestFirst(List<List<RecentPost>> sources, int limit) {
+    PriorityQueue<MergeHead> heads =
+        new PriorityQueue<>(Math.max(1, sources.size()),
+            (a, b) -> NEWEST_FIRST.compare(a.current(), b.current()));
+    for (List<RecentPost> source : sources) {
+      Iterator<RecentPost> iterator = source.iterator();
+      if (iterator.hasNext()) {
+        heads.add(new MergeHead(iterator.next(), iterator));
+      }
+    }
+    List<RecentPost> merged = new ArrayList<>(limit);
+    while (merged.size() < limit && !heads.isEmpty()) {
+      MergeHead head = heads.poll();
+      RecentPost post = head.current();
+      if (merged.isEmpty() || merged.get(merged.size() - 1).postId() != post.postId()) {
+        merged.add(post);
+      }
+      if (head.rest().hasNext()) {
+        heads.add(new MergeHead(head.rest().next(), head.rest()));
+      }
+    }
+    return merged;
+  }
+
+  private record MergeHead(RecentPost current, Iterator<RecentPost> rest) {
+  }
+
+  // Ranking comes from the in-memory trending engine, only the page's rows are read by id
+  private CursorPageDTO<PostResponseDTO> getTrendingFeed(String cursor, int pageSize,
+                                                         Long viewerId) {
+    RankedPage ranked;
+    if (cursor == null) {
+      ranked = trendingEngine.page(null, null, 0, pageSize + 1);
+    } else {
+      String[] parts = decodeFeedCursor(cursor, FilterType.TRENDING, 4);
+      ranked = trendingEngine.page(parseDoublePart(parts[2]), parseLongPart(parts[3]),
+          parseLongPart(parts[1]), pageSize + 1);
+    }
+    boolean hasMore = ranked.items().size() > pageSize;
+    List<Ranked> page = hasMore ? ranked.items().subList(0, pageSize) : ranked.items();
+
+    Map<Long, PostView> postsById = page.isEmpty() ? Map.of() : postRepository.findViewsByIdIn(
+            page.stream().map(Ranked::postId).toList()).stream()
+        .collect(Collectors.toMap(PostView::getId, Function.identity()));
+    List<PostView> posts = new ArrayList<>(page.size());
+    for (Ranked entry : page) {
+      PostView post = postsById.get(entry.postId());
+      if (post == null) {
+        trendingEngine.remove(entry.postId()); // Deleted together with its author
+      } else {
+        posts.add(post);
+      }
+    }
+    Ranked last = hasMore ? page.get(page.size() - 1) : null;
+    String nextCursor = hasMore
+        ? encodeCursor(FilterType.TRENDING.name(), ranked.landmark(), last.score(), last.postId())
+        : null;
+    return new CursorPageDTO<>(toResponseDTOs(posts, viewerId), nextCursor, hasMore);
+  }
+
+  private String[] decodeFeedCursor(String cursor, FilterType filter, int expectedParts) {
+    String[] parts = decodeCursor(cursor, expectedParts);
+    if (!filter.name().equals(parts[0])) {
+      throw new IllegalArgumentException("Cursor does not belong to the " + filter + " feed");
+    }
+    return parts;
+  }
+
+  @Transactional
+  public LikeResponseDTO likePost(Long postId, User user) {
+    Long authorId = postRepository.findAuthorIdById(postId)
         .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-    if (post.getLikes().contains(user)) {
-      post.removeLike(user);
+    if (likeWriteBehindBuffer.isEnabled()) {
+      boolean liked = likeWriteBehindBuffer.toggle(postId, authorId, user.getId());
+      return new LikeResponseDTO(postId, liked, postRepository.findLikeCountById(postId)
+          + likeWriteBehindBuffer.pendingDelta(postId));
+    }
+    // Delete-if-present, otherwise insert-if-absent. The primary key serializes concurrent
+    // toggles and the counter only moves when a row was really added or removed.
+    boolean liked;
+    LocalDateTime removedLikeAt = likeBatchRepository.deleteReturningLikedAt(postId, user.getId());
+    if (removedLikeAt != null) {
+      postRepository.adjustLikeCount(postId, -1);
+      eventPublisher.publishEvent(
+          new PostLikeToggledEvent(postId, authorId, user.getId(), false, removedLikeAt));
+      liked = false;
     } else {
-      post.addLike(user);
+      LocalDateTime now = LocalDateTime.now();
+      if (postRepository.insertLikeIfAbsent(postId, user.getId(), now) > 0) {
+        postRepository.adjustLikeCount(postId, 1);
+        eventPublisher.publishEvent(
+            new PostLikeToggledEvent(postId, authorId, user.getId(), true, now));
+      }
+      liked = true;
     }
-    postRepository.save(post);
+    return new LikeResponseDTO(postId, liked, postRepository.findLikeCountById(postId));
   }
 
   @Transactional
@@ -81,43 +335,142 @@ public class PostService {
     comment.setUser(user);
     comment.setCreatedAt(LocalDateTime.now());
     commentRepository.save(comment);
+    postRepository.adjustCommentCount(postId, 1);
+    eventPublisher.publishEvent(new CommentAddedEvent(comment.getId(), postId,
+        post.getUser().getId(), user.getId(), comment.getCreatedAt()));
 
     return commentMapper.toDTO(comment);
   }
 
   @Transactional
-  public PostResponseDTO getPostById(Long postId) {
-    Post post = postRepository.findByIdWithCommentsAndLikes(postId)
+  public PostResponseDTO getPostById(Long postId, Long viewerId) {
+    Post post = postRepository.findById(postId)
         .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-    return postMapper.toResponseDTO(post);
+    return toResponseDTO(post, viewerId);
 
   }
 
+  /**
+   * Returns a page of the users who liked a post, ordered by user id. Pass the returned cursor
+   * to continue after the last user of the page.
+   */
+  @Transactional(readOnly = true)
+  public CursorPageDTO<LikerDTO> getLikes(Long postId, String cursor, Integer size) {
+    if (!postRepository.existsById(postId)) {
+      throw new ResourceNotFoundException("Post not found");
+    }
+    int pageSize = resolvePageSize(size, defaultPageSize, maxPageSize);
+    long afterUserId = 0;
+    if (cursor != null) {
+      String[] parts = decodeCursor(cursor, 2);
+      if (!LIKES_CURSOR.equals(parts[0])) {
+        throw new IllegalArgumentException("Cursor does not belong to a like list");
+      }
+      afterUserId = parseLongPart(parts[1]);
+    }
+    List<LikerDTO> likers = postRepository.findLikers(postId, afterUserId, pageSize + 1)
+        .stream().map(userMapper::toLikerDTO).toList();
+    boolean hasMore = likers.size() > pageSize;
+    List<LikerDTO> page = hasMore ? likers.subList(0, pageSize) : likers;
+    String nextCursor = hasMore
+        ? encodeCursor(LIKES_CURSOR, page.get(page.size() - 1).getId())
+        : null;
+    return new CursorPageDTO<>(page, nextCursor, hasMore);
+  }
+
+  /**
+   * Returns a page of a post's comments, oldest first. Pass the returned cursor to continue
+   * after the last comment of the page.
+   */
+  @Transactional(readOnly = true)
+  public CursorPageDTO<CommentDTO> getComments(Long postId, String cursor, Integer size) {
+    if (!postRepository.existsById(postId)) {
+      throw new ResourceNotFoundException("Post not found");
+    }
+    int pageSize = resolvePageSize(size, defaultPageSize, maxPageSize);
+    Limit limit = Limit.of(pageSize + 1);
+    List<CommentView> comments;
+    if (cursor == null) {
+      comments = commentRepository.findThread(postId, limit);
+    } else {
+      String[] parts = decodeCursor(cursor, 3);
+      if (!COMMENTS_CURSOR.equals(parts[0])) {
+        throw new IllegalArgumentException("Cursor does not belong to a comment thread");
+      }
+      comments = commentRepository.findThreadAfter(postId, parseTimestampPart(parts[1]),
+          parseLongPart(parts[2]), limit);
+    }
+    boolean hasMore = comments.size() > pageSize;
+    List<CommentView> page = hasMore ? comments.subList(0, pageSize) : comments;
+    String nextCursor = null;
+    if (hasMore) {
+      CommentView last = page.get(page.size() - 1);
+      nextCursor = encodeCursor(COMMENTS_CURSOR, last.getCreatedAt(), last.getId());
+    }
+    return new CursorPageDTO<>(page.stream().map(commentMapper::toDTO).toList(), nextCursor,
+        hasMore);
+  }
+
   @Transactional
-  public List<PostResponseDTO> getAllPosts() {
-    return postRepository.findAll().stream()
-        .map(postMapper::toResponseDTO)
-        .toList();
+  public List<PostResponseDTO> getAllPosts(Long viewerId) {
+    return toResponseDTOs(postRepository.findAllViews(), viewerId);
   }
 
   @Transactional
-  public PostResponseDTO updatePost(Long postId, String content, byte[] imageData, User user) {
+  public PostResponseDTO updatePost(Long postId, String content, MultipartFile imageFile,
+                                    User user) throws IOException {
     Post post = postRepository.findById(postId)
         .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
-    if (!post.getUser().equals(user)) {
+    // Compare ids, a principal built from token claims carries only part of the user's fields
+    if (!post.getUser().getId().equals(user.getId())) {
       throw new UnauthorizedException("You are not authorized to update this post");
     }
     post.setContent(content);
-    if (imageData != null) {
-      post.setImageData(imageData);
+    if (attachImage(post, imageFile)) {
+      // Variants of the previous image must not be served for the new one
+      postRepository.clearImageVariants(postId);
+      post.setMediumKey(null);
+      post.setThumbnailKey(null);
+      post.setImageWidth(null);
+      post.setImageHeight(null);
+      imageProcessingService.scheduleVariants(postId, post.getImageKey());
+    }
+    return toResponseDTO(postRepository.save(post), user.getId());
+  }
+
+  private boolean attachImage(Post post, MultipartFile imageFile) throws IOException {
+    if (imageFile == null || imageFile.isEmpty()) {
+      return false;
     }
-    return PostMapper.INSTANCE.toResponseDTO(postRepository.save(post));
+    UploadedImage image = imageUploadService.store(imageFile);
+    post.setImageKey(image.getKey());
+    post.setImageContentType(image.getContentType());
+    return true;
+  }
+
+  public StoredImage getPostImage(Long postId, ImageVariant variant) {
+    PostImageView image = postRepository.findImageById(postId)
+        .filter(view -> view.getImageKey() != null)
+        .orElseThrow(() -> new ResourceNotFoundException("Image not found"));
+    // Fall back to the original until the requested variant has been processed
+    String variantKey = switch (variant) {
+      case THUMBNAIL -> image.getThumbnailKey();
+      case MEDIUM -> image.getMediumKey();
+      case ORIGINAL -> null;
+    };
+    String key = variantKey != null ? variantKey : image.getImageKey();
+    String contentType = variantKey != null ? "image/jpeg" : image.getImageContentType();
+    Resource resource = blobStore.get(key)
+        .orElseThrow(() -> new ResourceNotFoundException("Image not found"));
+    return new StoredImage(key, contentType, resource);
   }
 
   @Transactional
   public void deletePost(Long postId) {
     Post post = postRepository.findById(postId)
         .orElseThrow(() -> new ResourceNotFoundException("Post not found"));
+    // Published first, listeners still need the post's likes and comments
+    eventPublisher.publishEvent(new PostDeletedEvent(postId, post.getUser().getId()));
     postRepository.delete(post);
   }
 
@@ -126,8 +479,9 @@ public class PostService {
   }
 
   public List<PostResponseDTO> getPostsByUser(Long userId, FilterType filter,
-                                              LocalDateTime startTime, LocalDateTime endTime) {
-    List<Post> posts = postRepository.findAllByUserId(userId);
+                                              LocalDateTime startTime, LocalDateTime endTime,
+                                              Long viewerId) {
+    List<PostView> posts = new ArrayList<>(postRepository.findViewsByUserId(userId));
 
     // Filter by start and end time if provided
     if (startTime != null) {
@@ -143,14 +497,50 @@ public class PostService {
 
     // Sort the posts based on filter criteria
     if (FilterType.POPULARITY.equals(filter)) {
-      posts.sort((p1, p2) -> Integer.compare(p2.getLikeCount(), p1.getLikeCount()));
+      posts.sort((p1, p2) -> Long.compare(p2.getLikeCount(), p1.getLikeCount()));
     } else {
       // Default sorting by time (descending)
       posts.sort((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()));
     }
 
-    return posts.stream()
-        .map(postMapper::toResponseDTO)
+    return toResponseDTOs(posts, viewerId);
+  }
+
+  private PostResponseDTO toResponseDTO(Post post, Long viewerId) {
+    return complete(List.of(postMapper.toResponseDTO(post)), viewerId).get(0);
+  }
+
+  private List<PostResponseDTO> toResponseDTOs(List<PostView> posts, Long viewerId) {
+    return complete(posts.stream().map(postMapper::toResponseDTO).toList(), viewerId);
+  }
+
+  // Comment previews and the viewer's likes are loaded for the whole list at once, a page of
+  // ids per query; posts without comments are skipped using the counter
+  private List<PostResponseDTO> complete(List<PostResponseDTO> posts, Long viewerId) {
+    List<Long> ids = posts.stream().map(PostResponseDTO::getId).toList();
+    List<Long> commented = posts.stream()
+        .filter(post -> post.getCommentCount() > 0)
+        .map(PostResponseDTO::getId)
         .toList();
+    Map<Long, List<CommentDTO>> previews = new HashMap<>();
+    Set<Long> likedByViewer = new HashSet<>();
+    for (int from = 0; from < ids.size(); from += maxPageSize) {
+      if (commentPreviewSize > 0 && from < commented.size()) {
+        List<Long> chunk = commented.subList(from, Math.min(from + maxPageSize, commented.size()));
+        for (CommentView comment : commentRepository.findLatestByPostIds(chunk,
+            commentPreviewSize)) {
+          previews.computeIfAbsent(comment.getPostId(), id -> new ArrayList<>())
+              .add(commentMapper.toDTO(comment));
+        }
+      }
+      // Not filtered by like_count, a like pending in the write-behind buffer is not counted yet
+      likedByViewer.addAll(viewerStateResolver.likedPostIds(viewerId,
+          ids.subList(from, Math.min(from + maxPageSize, ids.size()))));
+    }
+    for (PostResponseDTO post : posts) {
+      post.setLatestComments(previews.getOrDefault(post.getId(), List.of()));
+      post.setLikedByMe(likedByViewer.contains(post.getId()));
+    }
+    return posts;
   }
 }
\ No newline at end of file
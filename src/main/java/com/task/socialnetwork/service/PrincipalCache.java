@@ -0,0 +1,112 @@
+package com.task.socialnetwork.service;
+
+import static com.task.socialnetwork.util.TransactionUtil.runAfterCommit;
+
+import com.task.socialnetwork.model.CustomUserDetails;
+import com.task.socialnetwork.model.Role;
+import com.task.socialnetwork.model.User;
+import com.task.socialnetwork.util.ExpiringLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps recently authenticated principals in memory so that authenticated requests do not
+ * need a users table lookup each time. Entries expire after a short TTL and are dropped as
+ * soon as the underlying user changes.
+ *
+ * <p>Entries are immutable snapshots of the user; every request gets its own copy, so code that
+ * modifies the principal's user cannot leak the change into other requests.
+ */
+@Service
+public class PrincipalCache {
+  private final UserDetailsService userDetailsService;
+  private final ExpiringLruCache<String, Snapshot> cache;
+  private final long ttlMillis;
+  // Bumped by every eviction, a load that overlapped one does not keep what it read
+  private final AtomicLong generation = new AtomicLong();
+
+  private record Snapshot(Long id, String username, String password, String email,
+                          String fullName, String bio, Role role, int tokenVersion) {
+    static Snapshot of(User user) {
+      return new Snapshot(user.getId(), user.getUsername(), user.getPassword(),
+          user.getEmail(), user.getFullName(), user.getBio(), user.getRole(),
+          user.getTokenVersion());
+    }
+
+    User toUser() {
+      return User.builder()
+          .id(id)
+          .username(username)
+          .password(password)
+          .email(email)
+          .fullName(fullName)
+          .bio(bio)
+          .role(role)
+          .tokenVersion(tokenVersion)
+          .build();
+    }
+  }
+
+  public PrincipalCache(UserDetailsService userDetailsService, MeterRegistry meterRegistry,
+                        @Value("${security.principal-cache.max-size}") int maxSize,
+                        @Value("${security.principal-cache.ttl}") Duration ttl) {
+    this.userDetailsService = userDetailsService;
+    this.cache = new ExpiringLruCache<>(maxSize);
+    this.ttlMillis = ttl.toMillis();
+
+    FunctionCounter.builder("principal.cache.hits", cache, ExpiringLruCache::hitCount)
+        .register(meterRegistry);
+    FunctionCounter.builder("principal.cache.misses", cache, ExpiringLruCache::missCount)
+        .register(meterRegistry);
+    Gauge.builder("principal.cache.size", cache, ExpiringLruCache::size)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns the principal for the username, loading it on a miss.
+   *
+   * @param username The username from a verified token.
+   * @return The user's details.
+   */
+  public UserDetails load(String username) {
+    Snapshot snapshot = cache.get(username);
+    if (snapshot == null) {
+      long loadedAt = generation.get();
+      CustomUserDetails userDetails =
+          (CustomUserDetails) userDetailsService.loadUserByUsername(username);
+      snapshot = Snapshot.of(userDetails.getUser());
+      cache.put(username, snapshot, System.currentTimeMillis() + ttlMillis);
+      // The row may have been read before a change that was evicted meanwhile. Either the
+      // eviction removes this entry or it bumped the generation before the check below.
+      if (generation.get() != loadedAt) {
+        cache.invalidate(username);
+      }
+    }
+    return new CustomUserDetails(snapshot.toUser());
+  }
+
+  /**
+   * Drops cached principals. Called again after commit so that a request racing with the
+   * change cannot put the old state back into the cache.
+   *
+   * @param usernames The usernames whose principals changed.
+   */
+  public void invalidate(String... usernames) {
+    evict(usernames);
+    runAfterCommit(() -> evict(usernames));
+  }
+
+  private void evict(String... usernames) {
+    generation.incrementAndGet();
+    for (String username : usernames) {
+      cache.invalidate(username);
+    }
+  }
+}
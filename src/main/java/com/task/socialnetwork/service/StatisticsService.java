@@ -1,14 +1,23 @@
 package com.task.socialnetwork.service;
 
+import com.task.socialnetwork.dto.EngagementPointDTO;
 import com.task.socialnetwork.dto.PostStatisticsDTO;
+import com.task.socialnetwork.dto.TrendingPostDTO;
 import com.task.socialnetwork.dto.UserActivityDTO;
-import com.task.socialnetwork.model.User;
-import com.task.socialnetwork.repository.CommentRepository;
+import com.task.socialnetwork.model.EngagementMetric;
+import com.task.socialnetwork.model.EngagementSubject;
+import com.task.socialnetwork.model.Granularity;
 import com.task.socialnetwork.repository.PostRepository;
 import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.repository.projection.UserActivityView;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,35 +26,95 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class StatisticsService {
   private final PostRepository postRepository;
-  private final CommentRepository commentRepository;
   private final UserRepository userRepository;
+  private final EngagementTracker engagementTracker;
 
-  @Transactional
+  @Value("${pagination.max-size}")
+  private int maxPageSize;
+
+  @Value("${engagement.max-days}")
+  private int maxEngagementDays;
+
+  @Value("${engagement.hour-retention}")
+  private Duration hourRetention;
+
+  @Transactional(readOnly = true)
   public List<PostStatisticsDTO> getPopularPosts(int limit) {
-    return postRepository.findAll().stream()
-        .sorted((post1, post2) -> Integer.compare(post2.getLikeCount(), post1.getLikeCount()))
-        .limit(limit)
-        .map(post -> new PostStatisticsDTO(
-            post.getId(),
-            post.getContent(),
-            post.getLikeCount(),
-            post.getComments().size()
-        ))
-        .collect(Collectors.toList());
-  }
-
-  @Transactional
+    if (limit < 1) {
+      throw new IllegalArgumentException("Limit must be greater than zero");
+    }
+    // Ordered and limited in SQL on the like counter index, never more than a page of rows
+    return postRepository.findMostLiked(Limit.of(Math.min(limit, maxPageSize)));
+  }
+
+  @Transactional(readOnly = true)
   public UserActivityDTO getUserActivity(Long userId) {
-    User user = userRepository.findById(userId)
+    return userRepository.findActivityByIds(List.of(userId)).stream()
+        .findFirst()
+        .map(StatisticsService::toActivityDTO)
         .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+  }
+
+  /**
+   * Activity of several users in a single query. Unknown ids are left out of the result.
+   */
+  @Transactional(readOnly = true)
+  public List<UserActivityDTO> getUserActivities(Collection<Long> userIds) {
+    Set<Long> distinctIds = new LinkedHashSet<>(userIds);
+    if (distinctIds.isEmpty()) {
+      throw new IllegalArgumentException("At least one user id is required");
+    }
+    if (distinctIds.size() > maxPageSize) {
+      throw new IllegalArgumentException("At most " + maxPageSize + " user ids are allowed");
+    }
+    return userRepository.findActivityByIds(distinctIds).stream()
+        .map(StatisticsService::toActivityDTO)
+        .toList();
+  }
 
-    long postCount = postRepository.countByUserId(user.getId());
-    long likeCount = postRepository.findAllByUserId(user.getId()).stream()
-        .mapToLong(post -> post.getLikes().size())
-        .sum();
-    long commentCount = commentRepository.countByUserId(user.getId());
+  public List<EngagementPointDTO> getPostEngagement(Long postId, EngagementMetric metric,
+                                                    Granularity granularity, int days) {
+    if (metric == EngagementMetric.POSTS) {
+      throw new IllegalArgumentException("Posts are only counted per user");
+    }
+    if (!postRepository.existsById(postId)) {
+      throw new ResourceNotFoundException("Post not found");
+    }
+    return engagementTracker.getSeries(EngagementSubject.POST, postId, metric, granularity,
+        validateDays(days, granularity));
+  }
+
+  public List<EngagementPointDTO> getUserEngagement(Long userId, EngagementMetric metric,
+                                                    Granularity granularity, int days) {
+    if (!userRepository.existsById(userId)) {
+      throw new ResourceNotFoundException("User not found");
+    }
+    return engagementTracker.getSeries(EngagementSubject.USER, userId, metric, granularity,
+        validateDays(days, granularity));
+  }
+
+  public List<TrendingPostDTO> getTrendingLastHour(int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Limit must be greater than zero");
+    }
+    return engagementTracker.getTrendingLastHour(Math.min(limit, maxPageSize));
+  }
+
+  // Hourly rows are purged after engagement.hour-retention, older hours would read as zero
+  private int validateDays(int days, Granularity granularity) {
+    int maxDays = granularity == Granularity.HOUR
+        ? (int) Math.min(maxEngagementDays, hourRetention.toDays())
+        : maxEngagementDays;
+    if (days < 1 || days > maxDays) {
+      throw new IllegalArgumentException(granularity == Granularity.HOUR
+          ? "Days must be between 1 and " + maxDays + " for hourly series"
+          : "Days must be between 1 and " + maxDays);
+    }
+    return days;
+  }
 
-    return new UserActivityDTO(user.getId(), user.getUsername(), postCount, likeCount,
-        commentCount);
+  private static UserActivityDTO toActivityDTO(UserActivityView view) {
+    return new UserActivityDTO(view.getUserId(), view.getUsername(), view.getPostCount(),
+        view.getLikeCount(), view.getLikesGiven(), view.getCommentCount(), view.getUpdatedAt());
   }
 }
@@ -0,0 +1,66 @@
+package com.task.socialnetwork.service;
+
+import com.task.socialnetwork.event.CommentAddedEvent;
+import com.task.socialnetwork.event.PostCreatedEvent;
+import com.task.socialnetwork.event.PostDeletedEvent;
+import com.task.socialnetwork.event.PostLikeToggledEvent;
+import com.task.socialnetwork.event.PostLikesFlushedEvent;
+import com.task.socialnetwork.event.UserDeletedEvent;
+import com.task.socialnetwork.repository.PostLikeBatchRepository;
+import com.task.socialnetwork.repository.PostRepository;
+import com.task.socialnetwork.repository.UserStatisticsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies write-path events to the user_statistics summary table as SQL deltas. Listeners run
+ * synchronously inside the publishing transaction, so the summary commits or rolls back
+ * together with the change it describes.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatisticsUpdater {
+  private final UserStatisticsRepository userStatisticsRepository;
+  private final PostRepository postRepository;
+  private final PostLikeBatchRepository likeBatchRepository;
+
+  @EventListener
+  public void onPostCreated(PostCreatedEvent event) {
+    userStatisticsRepository.adjust(event.getAuthorId(), 1, 0, 0, 0);
+  }
+
+  @EventListener
+  public void onLikeToggled(PostLikeToggledEvent event) {
+    long delta = event.isLiked() ? 1 : -1;
+    userStatisticsRepository.adjust(event.getAuthorId(), 0, delta, 0, 0);
+    userStatisticsRepository.adjust(event.getUserId(), 0, 0, delta, 0);
+  }
+
+  @EventListener
+  public void onLikesFlushed(PostLikesFlushedEvent event) {
+    likeBatchRepository.adjustLikeStatistics(event.getLikesReceivedByUser(),
+        event.getLikesGivenByUser());
+  }
+
+  @EventListener
+  public void onCommentAdded(CommentAddedEvent event) {
+    userStatisticsRepository.adjust(event.getUserId(), 0, 0, 0, 1);
+  }
+
+  @EventListener
+  public void onPostDeleted(PostDeletedEvent event) {
+    long likeCount = postRepository.findLikeCountById(event.getPostId());
+    userStatisticsRepository.adjust(event.getAuthorId(), -1, -likeCount, 0, 0);
+    userStatisticsRepository.decrementLikesGivenOnPost(event.getPostId());
+    userStatisticsRepository.decrementCommentsOnPost(event.getPostId());
+  }
+
+  @EventListener
+  public void onUserDeleted(UserDeletedEvent event) {
+    // The user's own row goes with the user; fix up everyone they interacted with
+    userStatisticsRepository.decrementLikesReceivedFrom(event.getUserId());
+    userStatisticsRepository.decrementLikesGivenOnPostsOf(event.getUserId());
+    userStatisticsRepository.decrementCommentsOnPostsOf(event.getUserId());
+  }
+}
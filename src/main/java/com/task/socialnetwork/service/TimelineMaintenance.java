@@ -0,0 +1,56 @@
+package com.task.socialnetwork.service;
+
+import com.task.socialnetwork.repository.PostRepository;
+import com.task.socialnetwork.repository.UserRepository;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps home timelines bounded. Fan-out only appends, so entries beyond the configured length
+ * are cut off here in the background instead of on every post.
+ *
+ * <p>Owners are walked in id order, a batch per transaction. Each owner costs one index range
+ * of its own timeline, so a pass never sorts the whole table or holds its locks for long.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TimelineMaintenance {
+  private static final int OWNERS_PER_BATCH = 500;
+
+  private final PostRepository postRepository;
+  private final UserRepository userRepository;
+  private final PlatformTransactionManager transactionManager;
+
+  @Value("${timeline.max-length}")
+  private int maxLength;
+
+  @Scheduled(initialDelayString = "${timeline.trim-interval}",
+      fixedDelayString = "${timeline.trim-interval}")
+  public void trimTimelines() {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    int trimmed = 0;
+    long lastId = 0;
+    List<Long> owners;
+    do {
+      owners = userRepository.findIdsAfter(lastId, Limit.of(OWNERS_PER_BATCH));
+      if (owners.isEmpty()) {
+        break;
+      }
+      lastId = owners.get(owners.size() - 1);
+      List<Long> batch = owners;
+      trimmed += transactionTemplate.execute(
+          status -> postRepository.trimTimelines(batch, maxLength));
+    } while (owners.size() == OWNERS_PER_BATCH);
+    if (trimmed > 0) {
+      log.debug("Trimmed {} home timeline entries", trimmed);
+    }
+  }
+}
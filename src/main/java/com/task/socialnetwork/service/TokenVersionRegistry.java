@@ -0,0 +1,192 @@
+package com.task.socialnetwork.service;
+
+import static com.task.socialnetwork.util.TransactionUtil.runAfterCommit;
+
+import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.repository.projection.TokenVersionView;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * In-memory table of the current token version of every user, used by the stateless JWT mode
+ * to revoke tokens without reading the users table on each request.
+ *
+ * <p>Versions live in an int array indexed by user id (four bytes per user). It is loaded once
+ * at startup, then kept current by polling the token_version_changes log and by local updates
+ * from this node as soon as their transaction commits. Deletions are logged as tombstones, so
+ * other nodes see them even though the users row is gone.
+ *
+ * <p>The poll watermark is a transaction id rather than a timestamp: every transaction below
+ * the oldest one still running has finished, so re-reading from there never misses a change
+ * that commits late, however long its transaction ran.
+ */
+@Slf4j
+@Service
+public class TokenVersionRegistry {
+  public static final int UNKNOWN = Integer.MIN_VALUE;
+  public static final int DELETED = -1;
+
+  private static final int LOAD_BATCH_SIZE = 10_000;
+
+  // Slot values: 0 = unknown, -1 = deleted, otherwise version + 1
+  private static final int EMPTY_SLOT = 0;
+  private static final int DELETED_SLOT = -1;
+
+  private final UserRepository userRepository;
+  private final boolean enabled;
+  private final Duration changeRetention;
+
+  private volatile AtomicIntegerArray versions = new AtomicIntegerArray(0);
+  private Long watermark; // Guarded by this
+
+  public TokenVersionRegistry(UserRepository userRepository,
+                              @Value("${jwt.stateless}") boolean enabled,
+                              @Value("${jwt.token-version-change-retention}")
+                              Duration changeRetention) {
+    this.userRepository = userRepository;
+    this.enabled = enabled;
+    this.changeRetention = changeRetention;
+  }
+
+  /**
+   * Returns the current token version of the user, {@link #DELETED} for removed users or
+   * {@link #UNKNOWN} when the user has not been seen yet (callers fall back to the database).
+   */
+  public int currentVersion(long userId) {
+    AtomicIntegerArray snapshot = versions;
+    if (userId < 0 || userId >= snapshot.length()) {
+      return UNKNOWN;
+    }
+    int slot = snapshot.get((int) userId);
+    if (slot == EMPTY_SLOT) {
+      return UNKNOWN;
+    }
+    return slot == DELETED_SLOT ? DELETED : slot - 1;
+  }
+
+  /**
+   * Logs the new version in the caller's transaction and applies it locally once it commits.
+   */
+  public void recordVersion(Long userId, int version) {
+    if (enabled) {
+      userRepository.insertTokenVersionChange(userId, version);
+      runAfterCommit(() -> set(userId, version + 1));
+    }
+  }
+
+  /**
+   * Logs a tombstone for the user in the caller's transaction and applies it locally once it
+   * commits.
+   */
+  public void recordDeleted(Long userId) {
+    if (enabled) {
+      userRepository.insertTokenVersionChange(userId, DELETED);
+      runAfterCommit(() -> set(userId, DELETED_SLOT));
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadAll() {
+    if (!enabled) {
+      return;
+    }
+    // Taken before the load, so changes committed while it runs are polled afterwards
+    long startTxid = userRepository.findOldestActiveTxid();
+    long afterId = 0;
+    List<TokenVersionView> batch;
+    do {
+      batch = userRepository.findTokenVersionsAfter(afterId, Limit.of(LOAD_BATCH_SIZE));
+      // Merged into the live table, so local updates that land meanwhile are kept
+      mergeAll(batch);
+      if (!batch.isEmpty()) {
+        afterId = batch.get(batch.size() - 1).getId();
+      }
+    } while (batch.size() == LOAD_BATCH_SIZE);
+
+    synchronized (this) {
+      watermark = startTxid;
+    }
+    log.info("Loaded token versions for users up to id {}", afterId);
+    // Catch up with changes made while the table was being loaded
+    refresh();
+  }
+
+  @Scheduled(fixedDelayString = "${jwt.token-version-refresh-interval}")
+  public void refresh() {
+    long since;
+    synchronized (this) {
+      if (!enabled || watermark == null) {
+        return;
+      }
+      since = watermark;
+    }
+    // Read the horizon first: whatever finished below it is visible to the query that follows
+    long next = userRepository.findOldestActiveTxid();
+    mergeAll(userRepository.findTokenVersionChangesSince(since));
+    synchronized (this) {
+      if (next > watermark) {
+        watermark = next;
+      }
+    }
+  }
+
+  @Scheduled(initialDelayString = "${jwt.token-version-prune-interval}",
+      fixedDelayString = "${jwt.token-version-prune-interval}")
+  @Transactional
+  public void pruneChanges() {
+    if (!enabled) {
+      return;
+    }
+    int pruned = userRepository.deleteTokenVersionChangesBefore(
+        LocalDateTime.now().minus(changeRetention));
+    if (pruned > 0) {
+      log.debug("Pruned {} token version changes", pruned);
+    }
+  }
+
+  private synchronized void mergeAll(List<TokenVersionView> rows) {
+    for (TokenVersionView row : rows) {
+      set(row.getId(), row.getTokenVersion() == DELETED ? DELETED_SLOT : row.getTokenVersion() + 1);
+    }
+  }
+
+  // Versions only move forward, so a slow poll never undoes a newer local update
+  private synchronized void set(Long userId, int slot) {
+    AtomicIntegerArray current = versions;
+    AtomicIntegerArray grown = ensureCapacity(current, userId);
+    int existing = grown.get(userId.intValue());
+    if (existing == DELETED_SLOT || (slot != DELETED_SLOT && slot <= existing)) {
+      return;
+    }
+    grown.set(userId.intValue(), slot);
+    if (grown != current) {
+      versions = grown;
+    }
+  }
+
+  private static AtomicIntegerArray ensureCapacity(AtomicIntegerArray array, Long userId) {
+    if (userId < array.length()) {
+      return array;
+    }
+    if (userId >= Integer.MAX_VALUE) {
+      throw new IllegalStateException("User id " + userId + " does not fit the version table");
+    }
+    int length = (int) Math.min(Integer.MAX_VALUE - 8L,
+        Math.max(userId + 1, array.length() * 3L / 2 + 16));
+    AtomicIntegerArray grown = new AtomicIntegerArray(length);
+    for (int i = 0; i < array.length(); i++) {
+      grown.set(i, array.get(i));
+    }
+    return grown;
+  }
+}
@@ -0,0 +1,211 @@
+package com.task.socialnetwork.service;
+
+import com.task.socialnetwork.event.CommentAddedEvent;
+import com.task.socialnetwork.event.PostDeletedEvent;
+import com.task.socialnetwork.event.PostLikeToggledEvent;
+import com.task.socialnetwork.event.PostLikesFlushedEvent;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory ranking of posts by time-decayed engagement, backing the TRENDING feed.
+ *
+ * <p>Scores use forward decay: an interaction at time t adds
+ * {@code weight * exp(lambda * (t - landmark))}, with lambda derived from the half-life. A newer
+ * interaction therefore always outweighs an older one, and stored scores never have to be aged.
+ * When the exponent grows large, every score is rescaled to a new landmark, which keeps the
+ * order intact. Scores are kept in a sorted set bounded to {@code trending.max-tracked} posts.
+ * The lowest-ranked post is evicted first. The state is rebuilt from post_likes and comment at
+ * startup.
+ */
+@Slf4j
+@Service
+public class TrendingEngine {
+  private static final double LIKE_WEIGHT = 1.0;
+  private static final double COMMENT_WEIGHT = 2.0;
+  // Rescale before exp() gets anywhere near overflowing a double
+  private static final double MAX_EXPONENT = 50.0;
+
+  private static final Comparator<Ranked> RANKING = Comparator
+      .comparingDouble(Ranked::score).reversed()
+      .thenComparing(Comparator.comparingLong(Ranked::postId).reversed());
+
+  private final JdbcTemplate jdbcTemplate;
+  private final double lambda; // Per second
+  private final int maxTracked;
+  private final Duration rebuildHorizon;
+
+  // Guarded by this
+  private final Map<Long, Ranked> byPost = new HashMap<>();
+  private final NavigableSet<Ranked> ranking = new TreeSet<>(RANKING);
+  private long landmark = System.currentTimeMillis() / 1000; // Epoch seconds
+
+  public record Ranked(long postId, double score) {
+  }
+
+  public record RankedPage(List<Ranked> items, long landmark) {
+  }
+
+  public TrendingEngine(JdbcTemplate jdbcTemplate,
+                        @Value("${trending.half-life}") Duration halfLife,
+                        @Value("${trending.max-tracked}") int maxTracked,
+                        @Value("${trending.rebuild-horizon}") Duration rebuildHorizon) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.lambda = Math.log(2) / halfLife.toSeconds();
+    this.maxTracked = maxTracked;
+    this.rebuildHorizon = rebuildHorizon;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onLikeToggled(PostLikeToggledEvent event) {
+    // An unlike takes off exactly what the like added, at the time the like was made
+    add(event.getPostId(), event.isLiked() ? LIKE_WEIGHT : -LIKE_WEIGHT,
+        toEpochSeconds(event.getLikedAt()));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onLikesFlushed(PostLikesFlushedEvent event) {
+    event.getLikes().forEach(this::onLikeToggled);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCommentAdded(CommentAddedEvent event) {
+    add(event.getPostId(), COMMENT_WEIGHT, toEpochSeconds(event.getCreatedAt()));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onPostDeleted(PostDeletedEvent event) {
+    remove(event.getPostId());
+  }
+
+  /**
+   * Returns up to {@code limit} posts ranked after the given position, best first.
+   *
+   * @param afterScore     Score of the last post on the previous page, or null for the first.
+   * @param afterId        Id of the last post on the previous page.
+   * @param afterLandmark  Landmark the previous score was computed against.
+   * @param limit          Maximum number of posts.
+   */
+  public synchronized RankedPage page(Double afterScore, Long afterId, long afterLandmark,
+                                      int limit) {
+    Iterable<Ranked> source = ranking;
+    if (afterScore != null) {
+      double rescaled = afterScore * Math.exp(-lambda * (landmark - afterLandmark));
+      source = ranking.tailSet(new Ranked(afterId, rescaled), false);
+    }
+    List<Ranked> items = new ArrayList<>(limit);
+    for (Ranked ranked : source) {
+      if (items.size() == limit) {
+        break;
+      }
+      items.add(ranked);
+    }
+    return new RankedPage(items, landmark);
+  }
+
+  public synchronized void remove(long postId) {
+    Ranked existing = byPost.remove(postId);
+    if (existing != null) {
+      ranking.remove(existing);
+    }
+  }
+
+  /**
+   * Recomputes every score from the interactions within {@code trending.rebuild-horizon}; older
+   * ones weigh too little to change the ranking.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    long start = System.nanoTime();
+    long newLandmark = nowSeconds();
+    // Timestamps are stored as local date-times, so measure ages against a local landmark too
+    LocalDateTime landmarkTime =
+        LocalDateTime.ofInstant(Instant.ofEpochSecond(newLandmark), ZoneId.systemDefault());
+    Timestamp since = Timestamp.valueOf(landmarkTime.minus(rebuildHorizon));
+    Map<Long, Double> scores = new HashMap<>();
+    jdbcTemplate.query("SELECT e.post_id, "
+            + "SUM(e.weight * EXP(? * EXTRACT(EPOCH FROM (e.created_at - ?)))) "
+            + "FROM (SELECT post_id, created_at, ? AS weight FROM post_likes "
+            + "WHERE created_at >= ? "
+            + "UNION ALL SELECT post_id, created_at, ? AS weight FROM comment "
+            + "WHERE created_at >= ?) e GROUP BY e.post_id",
+        rs -> {
+          scores.put(rs.getLong(1), rs.getDouble(2));
+        },
+        lambda, Timestamp.valueOf(landmarkTime), LIKE_WEIGHT, since, COMMENT_WEIGHT, since);
+
+    synchronized (this) {
+      byPost.clear();
+      ranking.clear();
+      landmark = newLandmark;
+      scores.forEach((postId, score) -> put(new Ranked(postId, score)));
+    }
+    log.info("Rebuilt trending scores for {} posts in {} ms", scores.size(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  private synchronized void add(long postId, double weight, long eventSeconds) {
+    if (lambda * (eventSeconds - landmark) > MAX_EXPONENT) {
+      rebase(eventSeconds);
+    }
+    double delta = weight * Math.exp(lambda * (eventSeconds - landmark));
+    Ranked existing = byPost.get(postId);
+    double score = (existing != null ? existing.score() : 0) + delta;
+    if (existing != null) {
+      ranking.remove(existing);
+      byPost.remove(postId);
+    }
+    if (score > 0) {
+      put(new Ranked(postId, score));
+    }
+  }
+
+  // Caller holds the lock
+  private void put(Ranked ranked) {
+    byPost.put(ranked.postId(), ranked);
+    ranking.add(ranked);
+    if (ranking.size() > maxTracked) {
+      Ranked lowest = ranking.pollLast();
+      byPost.remove(lowest.postId());
+    }
+  }
+
+  // Caller holds the lock. Scaling all scores by the same factor preserves their order; scores
+  // that rounding left at zero or below carry no engagement and are dropped.
+  private void rebase(long newLandmark) {
+    double factor = Math.exp(-lambda * (newLandmark - landmark));
+    List<Ranked> rescaled = ranking.stream()
+        .map(ranked -> new Ranked(ranked.postId(), ranked.score() * factor))
+        .filter(ranked -> ranked.score() > 0)
+        .toList();
+    byPost.clear();
+    ranking.clear();
+    rescaled.forEach(this::put);
+    landmark = newLandmark;
+  }
+
+  private static long nowSeconds() {
+    return System.currentTimeMillis() / 1000;
+  }
+
+  private static long toEpochSeconds(LocalDateTime time) {
+    return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+  }
+}
@@ -4,6 +4,7 @@ import static com.task.socialnetwork.util.UserUtil.validateUserData;
 
 import com.task.socialnetwork.dto.UserDTO;
 import com.task.socialnetwork.dto.UserUpdateRequestDTO;
+import com.task.socialnetwork.event.UserDeletedEvent;
 import com.task.socialnetwork.mapper.UserMapper;
 import com.task.socialnetwork.model.User;
 import com.task.socialnetwork.repository.CommentRepository;
@@ -11,6 +12,7 @@ import com.task.socialnetwork.repository.PostRepository;
 import com.task.socialnetwork.repository.UserRepository;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -24,6 +26,9 @@ public class UserService {
   private final CommentRepository commentRepository;
   private final PasswordEncoder passwordEncoder;
   private final UserMapper userMapper;
+  private final PrincipalCache principalCache;
+  private final TokenVersionRegistry tokenVersionRegistry;
+  private final ApplicationEventPublisher eventPublisher;
 
   @Transactional
   public UserDTO updateUserProfile(Long userId, UserUpdateRequestDTO updatedUser) {
@@ -34,24 +39,40 @@ public class UserService {
 
     validateUserData(user); // Validate input data
 
+    principalCache.invalidate(existingUser.getUsername(), updatedUser.getUsername());
+    boolean credentialsChanged =
+        !existingUser.getUsername().equals(updatedUser.getUsername());
     existingUser.setUsername(updatedUser.getUsername());
     existingUser.setEmail(updatedUser.getEmail());
 
     // Update password only if provided
     if (updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty()) {
       existingUser.setPassword(passwordEncoder.encode(updatedUser.getPassword()));
+      credentialsChanged = true;
     }
 
     userRepository.save(existingUser);
 
+    // Tokens issued before a username or password change stop working
+    if (credentialsChanged) {
+      userRepository.bumpTokenVersion(userId);
+      tokenVersionRegistry.recordVersion(userId, userRepository.findTokenVersionById(userId));
+    }
+
     return userMapper.toDTO(existingUser);
   }
 
   @Transactional
   public void deleteUser(Long userId) {
-    if (!userRepository.existsById(userId)) {
-      throw new ResourceNotFoundException("User not found");
-    }
+    User user = userRepository.findById(userId)
+        .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    principalCache.invalidate(user.getUsername());
+    tokenVersionRegistry.recordDeleted(userId);
+    eventPublisher.publishEvent(new UserDeletedEvent(userId));
+    // Keep counters on other users' posts in sync before the likes and comments disappear
+    postRepository.decrementLikeCountsLikedBy(userId);
+    postRepository.decrementCommentCountsCommentedBy(userId);
+    userRepository.decrementFollowerCountsFollowedBy(userId);
     postRepository.deleteAllByUserId(userId);
     commentRepository.deleteAllByUserId(userId);
     userRepository.deleteById(userId);
@@ -0,0 +1,181 @@
+package com.task.socialnetwork.service;
+
+import com.task.socialnetwork.event.PostLikeToggledEvent;
+import com.task.socialnetwork.event.PostLikesFlushedEvent;
+import com.task.socialnetwork.model.UserStatistics;
+import com.task.socialnetwork.repository.PostRepository;
+import com.task.socialnetwork.repository.UserStatisticsRepository;
+import com.task.socialnetwork.util.ExpiringLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Answers which posts of a page the viewer liked. Normally one post_likes lookup per page.
+ * Viewers who have given at least {@code likes.viewer-state.bitmap-min-likes} likes instead get
+ * a bitmap of their likes on the newest {@code likes.viewer-state.bitmap-window} post ids, so
+ * scrolling through recent posts does not touch post_likes; older posts still go to the table.
+ *
+ * <p>Bitmaps follow the likes toggled on this node, toggles on other nodes show up once the
+ * entry expires. Likes still pending in the write-behind buffer win over either source.
+ */
+@Service
+public class ViewerStateResolver {
+  private final PostRepository postRepository;
+  private final UserStatisticsRepository userStatisticsRepository;
+  private final LikeWriteBehindBuffer likeWriteBehindBuffer;
+  private final ExpiringLruCache<Long, RecentLikes> cache;
+  private final long bitmapMinLikes;
+  private final int bitmapWindow;
+  private final long ttlMillis;
+  // Bumped by every toggle, a load that overlapped one does not keep what it read
+  private final AtomicLong generation = new AtomicLong();
+
+  public ViewerStateResolver(PostRepository postRepository,
+                             UserStatisticsRepository userStatisticsRepository,
+                             LikeWriteBehindBuffer likeWriteBehindBuffer,
+                             MeterRegistry meterRegistry,
+                             @Value("${likes.viewer-state.bitmap-min-likes}") long bitmapMinLikes,
+                             @Value("${likes.viewer-state.bitmap-window}") int bitmapWindow,
+                             @Value("${likes.viewer-state.max-size}") int maxSize,
+                             @Value("${likes.viewer-state.ttl}") Duration ttl) {
+    this.postRepository = postRepository;
+    this.userStatisticsRepository = userStatisticsRepository;
+    this.likeWriteBehindBuffer = likeWriteBehindBuffer;
+    this.cache = new ExpiringLruCache<>(maxSize);
+    this.bitmapMinLikes = bitmapMinLikes;
+    this.bitmapWindow = bitmapWindow;
+    this.ttlMillis = ttl.toMillis();
+
+    FunctionCounter.builder("likes.viewer-state.cache.hits", cache, ExpiringLruCache::hitCount)
+        .register(meterRegistry);
+    FunctionCounter.builder("likes.viewer-state.cache.misses", cache,
+            ExpiringLruCache::missCount)
+        .register(meterRegistry);
+    Gauge.builder("likes.viewer-state.cache.size", cache, ExpiringLruCache::size)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns the ids among {@code postIds} that the viewer currently likes.
+   *
+   * @param viewerId The requesting user, null for none.
+   */
+  public Set<Long> likedPostIds(Long viewerId, Collection<Long> postIds) {
+    Set<Long> liked = new HashSet<>();
+    if (viewerId == null || postIds.isEmpty()) {
+      return liked;
+    }
+    RecentLikes recent = recentLikes(viewerId);
+    List<Long> unresolved = new ArrayList<>(postIds.size());
+    for (Long postId : postIds) {
+      Boolean state = recent.state(postId);
+      if (state == null) {
+        unresolved.add(postId);
+      } else if (state) {
+        liked.add(postId);
+      }
+    }
+    if (!unresolved.isEmpty()) {
+      liked.addAll(postRepository.findPostIdsLikedBy(viewerId, unresolved));
+    }
+    if (likeWriteBehindBuffer.isEnabled()) {
+      for (Long postId : postIds) {
+        Boolean pending = likeWriteBehindBuffer.pendingState(postId, viewerId);
+        if (Boolean.TRUE.equals(pending)) {
+          liked.add(postId);
+        } else if (Boolean.FALSE.equals(pending)) {
+          liked.remove(postId);
+        }
+      }
+    }
+    return liked;
+  }
+
+  // Only updates a bitmap that is already cached, loading one here would not save a query
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onLikeToggled(PostLikeToggledEvent event) {
+    generation.incrementAndGet();
+    RecentLikes recent = cache.get(event.getUserId());
+    if (recent != null) {
+      recent.update(event.getPostId(), event.isLiked());
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onLikesFlushed(PostLikesFlushedEvent event) {
+    event.getLikes().forEach(this::onLikeToggled);
+  }
+
+  private RecentLikes recentLikes(Long viewerId) {
+    RecentLikes recent = cache.get(viewerId);
+    if (recent == null) {
+      long loadedAt = generation.get();
+      recent = load(viewerId);
+      cache.put(viewerId, recent, System.currentTimeMillis() + ttlMillis);
+      // A like committed after the query but before the put found no entry to update. Either
+      // the toggle updates this entry or it bumped the generation before the check below.
+      if (generation.get() != loadedAt) {
+        cache.invalidate(viewerId);
+      }
+    }
+    return recent;
+  }
+
+  // Less active viewers are cached too, as a bitmap-less entry, so the check runs once per TTL
+  private RecentLikes load(Long viewerId) {
+    long likesGiven = userStatisticsRepository.findById(viewerId)
+        .map(UserStatistics::getLikesGiven)
+        .orElse(0L);
+    if (likesGiven < bitmapMinLikes) {
+      return RecentLikes.NONE;
+    }
+    long newestPostId = postRepository.findMaxId().orElse(0L);
+    long base = Math.max(0, newestPostId - bitmapWindow);
+    BitSet bits = new BitSet();
+    for (Long postId : postRepository.findPostIdsLikedAfter(viewerId, base)) {
+      bits.set((int) (postId - base));
+    }
+    return new RecentLikes(base, bits);
+  }
+
+  // Bit n stands for post id base + n. Posts at or below the base are not covered; posts
+  // created after the load are, since a like on them here reaches the bitmap as an event.
+  private static final class RecentLikes {
+    static final RecentLikes NONE = new RecentLikes(0, null);
+
+    private final long base;
+    private final BitSet bits;
+
+    RecentLikes(long base, BitSet bits) {
+      this.base = base;
+      this.bits = bits;
+    }
+
+    synchronized Boolean state(long postId) {
+      long offset = postId - base;
+      if (bits == null || offset <= 0 || offset > Integer.MAX_VALUE) {
+        return null;
+      }
+      return bits.get((int) offset);
+    }
+
+    synchronized void update(long postId, boolean liked) {
+      long offset = postId - base;
+      if (bits != null && offset > 0 && offset <= Integer.MAX_VALUE) {
+        bits.set((int) offset, liked);
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.task.socialnetwork.storage;
+
+import java.io.InputStream;
+import java.util.Optional;
+import org.springframework.core.io.Resource;
+
+/**
+ * Content-addressed storage for binary payloads such as post images.
+ * Implementations return a stable key for the stored content; storing identical content twice
+ * yields the same key, so callers only need to keep the key.
+ */
+public interface BlobStore {
+
+  /**
+   * Streams the given content into the store if it is not stored yet. The stream is read
+   * through a small fixed buffer, so memory use does not depend on the content size.
+   *
+   * @param content  The stream to consume; the caller remains responsible for closing it.
+   * @param maxBytes The maximum number of bytes accepted.
+   * @return The key under which the content can be read back.
+   * @throws com.task.socialnetwork.error.PayloadTooLargeException if the content is larger
+   *                                                               than maxBytes.
+   */
+  String put(InputStream content, long maxBytes);
+
+  /**
+   * Looks up stored content for streaming.
+   *
+   * @param key The key returned by {@link #put}.
+   * @return The stored content, or empty if no content exists for the key.
+   */
+  Optional<Resource> get(String key);
+}
@@ -0,0 +1,156 @@
+package com.task.socialnetwork.storage;
+
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The EXIF orientation of a JPEG: how the stored pixels have to be turned to appear upright.
+ * Cameras store pixels as the sensor reads them and record the rotation in this tag instead.
+ * Values follow the EXIF specification, 1 means the pixels are already upright.
+ */
+final class ExifOrientation {
+  static final int NORMAL = 1;
+
+  private static final int ORIENTATION_TAG = 0x0112;
+  private static final int TYPE_SHORT = 3;
+  private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+
+  private ExifOrientation() {
+  }
+
+  /**
+   * Reads the orientation from the payload of an APP1 segment.
+   *
+   * @return The orientation, or {@link #NORMAL} if the segment holds no valid one.
+   */
+  static int parse(byte[] app1) {
+    if (!isExif(app1)) {
+      return NORMAL;
+    }
+    int tiff = EXIF_HEADER.length;
+    if (app1.length < tiff + 8) {
+      return NORMAL;
+    }
+    boolean bigEndian = app1[tiff] == 'M' && app1[tiff + 1] == 'M';
+    if (!bigEndian && !(app1[tiff] == 'I' && app1[tiff + 1] == 'I')) {
+      return NORMAL;
+    }
+    long ifd = tiff + readInt(app1, tiff + 4, bigEndian);
+    if (ifd + 2 > app1.length) {
+      return NORMAL;
+    }
+    int entries = readShort(app1, (int) ifd, bigEndian);
+    for (int i = 0; i < entries; i++) {
+      int entry = (int) ifd + 2 + i * 12;
+      if (entry + 12 > app1.length) {
+        break;
+      }
+      if (readShort(app1, entry, bigEndian) == ORIENTATION_TAG
+          && readShort(app1, entry + 2, bigEndian) == TYPE_SHORT) {
+        int orientation = readShort(app1, entry + 8, bigEndian);
+        return orientation >= 1 && orientation <= 8 ? orientation : NORMAL;
+      }
+    }
+    return NORMAL;
+  }
+
+  static boolean isExif(byte[] app1) {
+    return app1.length >= EXIF_HEADER.length
+        && Arrays.equals(app1, 0, EXIF_HEADER.length, EXIF_HEADER, 0, EXIF_HEADER.length);
+  }
+
+  /**
+   * Reads the orientation of a JPEG stream, looking only at the segments before the image data.
+   *
+   * @return The orientation, or {@link #NORMAL} for other formats and photos without one.
+   */
+  static int read(InputStream in) throws IOException {
+    if (in.read() != 0xFF || in.read() != 0xD8) {
+      return NORMAL;
+    }
+    while (true) {
+      if (in.read() != 0xFF) {
+        return NORMAL;
+      }
+      int marker = in.read();
+      while (marker == 0xFF) {
+        marker = in.read();
+      }
+      if (marker == -1 || marker == 0xDA || marker == 0xD9) {
+        return NORMAL;
+      }
+      if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+        continue;
+      }
+      int high = in.read();
+      int low = in.read();
+      if (low == -1) {
+        return NORMAL;
+      }
+      int payload = ((high << 8) | low) - 2;
+      if (payload < 0) {
+        return NORMAL;
+      }
+      byte[] segment = in.readNBytes(payload);
+      if (marker == 0xE1 && isExif(segment)) {
+        return parse(segment);
+      }
+    }
+  }
+
+  /**
+   * Builds the payload of an APP1 segment that carries nothing but the orientation.
+   */
+  static byte[] segment(int orientation) {
+    byte[] app1 = Arrays.copyOf(EXIF_HEADER, EXIF_HEADER.length + 26);
+    byte[] tiff = {
+        'M', 'M', 0, 42, 0, 0, 0, 8, // Big-endian header, IFD0 right after it
+        0, 1, // One entry
+        0x01, 0x12, 0, TYPE_SHORT, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+        0, 0, 0, 0 // No further IFD
+    };
+    System.arraycopy(tiff, 0, app1, EXIF_HEADER.length, tiff.length);
+    return app1;
+  }
+
+  /**
+   * Whether the upright image is the stored one turned by a quarter, so width and height swap.
+   */
+  static boolean swapsDimensions(int orientation) {
+    return orientation >= 5 && orientation <= 8;
+  }
+
+  /**
+   * Maps the stored pixels of a width x height image onto the upright image.
+   */
+  static AffineTransform transform(int orientation, int width, int height) {
+    return switch (orientation) {
+      case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0); // Mirrored
+      case 3 -> new AffineTransform(-1, 0, 0, -1, width, height); // Upside down
+      case 4 -> new AffineTransform(1, 0, 0, -1, 0, height); // Mirrored upside down
+      case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0); // Transposed
+      case 6 -> new AffineTransform(0, 1, -1, 0, height, 0); // Turned a quarter clockwise
+      case 7 -> new AffineTransform(0, -1, -1, 0, height, width); // Transversed
+      case 8 -> new AffineTransform(0, -1, 1, 0, 0, width); // Turned a quarter counter-clockwise
+      default -> new AffineTransform();
+    };
+  }
+
+  private static int readShort(byte[] bytes, int offset, boolean bigEndian) {
+    int first = bytes[offset] & 0xFF;
+    int second = bytes[offset + 1] & 0xFF;
+    return bigEndian ? (first << 8) | second : (second << 8) | first;
+  }
+
+  private static long readInt(byte[] bytes, int offset, boolean bigEndian) {
+    long value = 0;
+    for (int i = 0; i < 4; i++) {
+      int shift = bigEndian ? (3 - i) * 8 : i * 8;
+      value |= (long) (bytes[offset + i] & 0xFF) << shift;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,122 @@
+package com.task.socialnetwork.storage;
+
+import com.task.socialnetwork.error.PayloadTooLargeException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores blobs on the local filesystem under their SHA-256 digest, sharded into two directory
+ * levels (ab/cd/abcd...) so no single directory grows unbounded.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
+public class FileSystemBlobStore implements BlobStore {
+
+  private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+  private static final int BUFFER_SIZE = 8192;
+
+  private final Path root;
+  private final Path tmpDir;
+
+  public FileSystemBlobStore(@Value("${storage.local.root}") Path root) {
+    this.root = root.toAbsolutePath();
+    this.tmpDir = this.root.resolve("tmp");
+    try {
+      Files.createDirectories(tmpDir);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create blob store directory " + root, e);
+    }
+  }
+
+  @Override
+  public String put(InputStream content, long maxBytes) {
+    MessageDigest digest = sha256();
+    Path tmp = null;
+    try {
+      // Copy to a temp file next to the store while hashing, then move it into place so
+      // readers never see a partial blob
+      tmp = Files.createTempFile(tmpDir, "upload", ".tmp");
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+          total += read;
+          if (total > maxBytes) {
+            throw new PayloadTooLargeException("Content exceeds the maximum of "
+                + maxBytes + " bytes");
+          }
+          digest.update(buffer, 0, read);
+          out.write(buffer, 0, read);
+        }
+      }
+      String key = HexFormat.of().formatHex(digest.digest());
+      Path target = pathFor(key);
+      if (!Files.exists(target)) {
+        Files.createDirectories(target.getParent());
+        moveIntoPlace(tmp, target);
+      }
+      return key;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to store blob", e);
+    } finally {
+      deleteQuietly(tmp);
+    }
+  }
+
+  @Override
+  public Optional<Resource> get(String key) {
+    if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+      return Optional.empty();
+    }
+    Path path = pathFor(key);
+    return Files.isRegularFile(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+  }
+
+  private void moveIntoPlace(Path tmp, Path target) throws IOException {
+    try {
+      Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (FileAlreadyExistsException ignored) {
+      // A concurrent writer stored the same content first
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ignored) {
+      // Leftover temp files are harmless and live outside the addressed tree
+    }
+  }
+
+  private Path pathFor(String key) {
+    return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
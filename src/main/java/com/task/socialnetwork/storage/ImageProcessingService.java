@@ -0,0 +1,190 @@
+package com.task.socialnetwork.storage;
+
+import static com.task.socialnetwork.util.TransactionUtil.runAfterCommit;
+
+import com.task.socialnetwork.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+/**
+ * Produces the downscaled variants of uploaded post images off the request thread.
+ * Work goes through a bounded queue served by one worker per core; when the queue is full the
+ * post simply keeps serving its original image.
+ */
+@Slf4j
+@Service
+public class ImageProcessingService {
+  // Refuse to decode anything larger, a small file can still expand into a huge bitmap
+  private static final long MAX_PIXELS = 50_000_000L;
+  private static final float JPEG_QUALITY = 0.82f;
+  // Longest edge of the scaled variants, in pixels
+  private static final int MEDIUM_MAX_DIMENSION = 1080;
+  private static final int THUMBNAIL_MAX_DIMENSION = 320;
+
+  private final BlobStore blobStore;
+  private final PostRepository postRepository;
+  private final ThreadPoolExecutor executor;
+
+  public ImageProcessingService(BlobStore blobStore, PostRepository postRepository,
+                                @Value("${image-processing.queue-capacity}") int queueCapacity) {
+    this.blobStore = blobStore;
+    this.postRepository = postRepository;
+    int poolSize = Runtime.getRuntime().availableProcessors();
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), workerThreads(),
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Queues variant generation for a post image once the current transaction has committed,
+   * so workers never look for a post that is not visible yet.
+   *
+   * @param postId   The post owning the image.
+   * @param imageKey The blob key of the original image.
+   */
+  public void scheduleVariants(Long postId, String imageKey) {
+    runAfterCommit(() -> submit(postId, imageKey));
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  private void submit(Long postId, String imageKey) {
+    try {
+      executor.execute(() -> process(postId, imageKey));
+    } catch (RejectedExecutionException e) {
+      log.warn("Image processing queue is full, post {} keeps only its original image", postId);
+    }
+  }
+
+  private void process(Long postId, String imageKey) {
+    try {
+      Resource original = blobStore.get(imageKey).orElse(null);
+      if (original == null) {
+        return;
+      }
+      int orientation;
+      try (InputStream header = original.getInputStream()) {
+        orientation = ExifOrientation.read(header);
+      }
+      try (InputStream raw = original.getInputStream();
+           ImageInputStream in = ImageIO.createImageInputStream(raw)) {
+        Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+        if (readers == null || !readers.hasNext()) {
+          log.debug("No image reader for post {}, skipping variants", postId);
+          return;
+        }
+        ImageReader reader = readers.next();
+        try {
+          // Metadata is not read through ImageIO, re-encoding from pixels leaves it behind. The
+          // orientation was read above and is applied to the pixels of every variant instead.
+          reader.setInput(in, true, true);
+          int width = reader.getWidth(0);
+          int height = reader.getHeight(0);
+          if ((long) width * height > MAX_PIXELS) {
+            log.warn("Image of post {} is {}x{}, too large to process", postId, width, height);
+            return;
+          }
+          // Decode at reduced resolution when the original is far larger than any variant
+          ImageReadParam param = reader.getDefaultReadParam();
+          int subsampling = Math.max(1,
+              Math.max(width, height) / MEDIUM_MAX_DIMENSION);
+          param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+          BufferedImage source = reader.read(0, param);
+
+          String mediumKey = storeVariant(source, orientation, MEDIUM_MAX_DIMENSION);
+          String thumbnailKey = storeVariant(source, orientation, THUMBNAIL_MAX_DIMENSION);
+          // Dimensions as displayed, which is what clients lay the image out by
+          boolean swapped = ExifOrientation.swapsDimensions(orientation);
+          postRepository.updateImageVariants(postId, imageKey, mediumKey, thumbnailKey,
+              swapped ? height : width, swapped ? width : height);
+        } finally {
+          reader.dispose();
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to process the image of post {}", postId, e);
+    }
+  }
+
+  private String storeVariant(BufferedImage source, int orientation, int maxDimension)
+      throws IOException {
+    boolean swapped = ExifOrientation.swapsDimensions(orientation);
+    int uprightWidth = swapped ? source.getHeight() : source.getWidth();
+    int uprightHeight = swapped ? source.getWidth() : source.getHeight();
+    double scale = Math.min(1d, (double) maxDimension / Math.max(uprightWidth, uprightHeight));
+    int width = Math.max(1, (int) Math.round(uprightWidth * scale));
+    int height = Math.max(1, (int) Math.round(uprightHeight * scale));
+    // Turns the stored pixels upright and scales them in one pass
+    AffineTransform transform = AffineTransform.getScaleInstance(
+        (double) width / uprightWidth, (double) height / uprightHeight);
+    transform.concatenate(
+        ExifOrientation.transform(orientation, source.getWidth(), source.getHeight()));
+
+    // JPEG has no alpha channel, so transparent areas are flattened onto white
+    BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = target.createGraphics();
+    try {
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+          RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.setColor(Color.WHITE);
+      graphics.fillRect(0, 0, width, height);
+      graphics.drawImage(source, transform, null);
+    } finally {
+      graphics.dispose();
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+      writer.setOutput(ios);
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(JPEG_QUALITY);
+      writer.write(null, new IIOImage(target, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    return blobStore.put(new ByteArrayInputStream(out.toByteArray()), Long.MAX_VALUE);
+  }
+
+  private static ThreadFactory workerThreads() {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "image-processing-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
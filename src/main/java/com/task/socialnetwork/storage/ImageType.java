@@ -0,0 +1,70 @@
+package com.task.socialnetwork.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * Image formats accepted for upload, recognized by their magic bytes rather than by the
+ * content type the client claims.
+ */
+@Getter
+public enum ImageType {
+  JPEG("image/jpeg"),
+  PNG("image/png"),
+  GIF("image/gif"),
+  WEBP("image/webp");
+
+  static final int HEADER_SIZE = 12;
+
+  private final String contentType;
+
+  ImageType(String contentType) {
+    this.contentType = contentType;
+  }
+
+  /**
+   * Peeks at the first bytes of the stream and resets it, so the caller can still consume the
+   * full content afterwards.
+   *
+   * @param in A stream that supports mark/reset.
+   * @return The detected type, or null if the content is not a supported image.
+   * @throws IOException if the stream cannot be read.
+   */
+  public static ImageType sniff(InputStream in) throws IOException {
+    in.mark(HEADER_SIZE);
+    byte[] header = in.readNBytes(HEADER_SIZE);
+    in.reset();
+    return detect(header);
+  }
+
+  static ImageType detect(byte[] h) {
+    if (startsWith(h, 0xFF, 0xD8, 0xFF)) {
+      return JPEG;
+    }
+    if (startsWith(h, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+      return PNG;
+    }
+    if (startsWith(h, 'G', 'I', 'F', '8')) {
+      return GIF;
+    }
+    if (startsWith(h, 'R', 'I', 'F', 'F') && h.length >= HEADER_SIZE
+        && Arrays.equals(h, 8, 12, new byte[] {'W', 'E', 'B', 'P'}, 0, 4)) {
+      return WEBP;
+    }
+    return null;
+  }
+
+  private static boolean startsWith(byte[] header, int... signature) {
+    if (header.length < signature.length) {
+      return false;
+    }
+    for (int i = 0; i < signature.length; i++) {
+      if ((header[i] & 0xFF) != signature[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,45 @@
+package com.task.socialnetwork.storage;
+
+import com.task.socialnetwork.error.PayloadTooLargeException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+@Service
+@RequiredArgsConstructor
+public class ImageUploadService {
+  private final BlobStore blobStore;
+
+  @Value("${storage.max-image-size}")
+  private DataSize maxImageSize;
+
+  /**
+   * Streams an uploaded image into the blob store without buffering it on the heap.
+   * The type is sniffed from the first bytes and the size is enforced while copying. EXIF and
+   * XMP metadata is left out on the way, the original is served as stored.
+   *
+   * @param file The uploaded multipart file.
+   * @return The blob key and detected content type.
+   * @throws IOException if the upload cannot be read.
+   */
+  public UploadedImage store(MultipartFile file) throws IOException {
+    long maxBytes = maxImageSize.toBytes();
+    // Reject on the declared size before reading a single byte
+    if (file.getSize() > maxBytes) {
+      throw new PayloadTooLargeException("Image exceeds the maximum size of " + maxImageSize);
+    }
+    try (InputStream in = new BufferedInputStream(file.getInputStream())) {
+      ImageType type = ImageType.sniff(in);
+      if (type == null) {
+        throw new IllegalArgumentException("Unsupported image type");
+      }
+      String key = blobStore.put(new MetadataStrippingInputStream(in, type), maxBytes);
+      return new UploadedImage(key, type.getContentType());
+    }
+  }
+}
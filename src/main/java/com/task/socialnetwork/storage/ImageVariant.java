@@ -0,0 +1,11 @@
+package com.task.socialnetwork.storage;
+
+/**
+ * Renditions a post image can be requested in. The sizes of the scaled ones are defined where
+ * they are produced, in {@link ImageProcessingService}.
+ */
+public enum ImageVariant {
+  ORIGINAL,
+  MEDIUM,
+  THUMBNAIL
+}
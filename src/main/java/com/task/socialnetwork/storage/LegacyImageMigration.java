@@ -0,0 +1,78 @@
+package com.task.socialnetwork.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves images still stored inline in posts.image_data into the blob store on startup.
+ * Runs in small batches so a large backlog never has to fit in memory at once, and fills in
+ * the content type and resized variants the upload path would have produced.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LegacyImageMigration implements ApplicationRunner {
+  private static final int BATCH_SIZE = 20;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final BlobStore blobStore;
+  private final ImageProcessingService imageProcessingService;
+  private final PlatformTransactionManager transactionManager;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    // Connections do not auto-commit, so every batch gets its own transaction to stick
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    int migrated = 0;
+    long lastId = 0;
+    List<Long> ids;
+    do {
+      // Keyset cursor: a row that fails to migrate is skipped instead of being read forever
+      ids = jdbcTemplate.queryForList(
+          "SELECT id FROM posts WHERE image_data IS NOT NULL AND id > ? ORDER BY id LIMIT ?",
+          Long.class, lastId, BATCH_SIZE);
+      if (ids.isEmpty()) {
+        break;
+      }
+      lastId = ids.get(ids.size() - 1);
+      List<Object[]> updates = new ArrayList<>(ids.size());
+      for (Long id : ids) {
+        byte[] imageData = jdbcTemplate.queryForObject(
+            "SELECT image_data FROM posts WHERE id = ?", byte[].class, id);
+        if (imageData == null) {
+          continue;
+        }
+        ImageType type = ImageType.detect(imageData);
+        InputStream content = new ByteArrayInputStream(imageData);
+        // Same as uploads, the stored original carries no location or camera metadata
+        String key = blobStore.put(type != null
+            ? new MetadataStrippingInputStream(content, type) : content, Long.MAX_VALUE);
+        updates.add(new Object[] {key, type != null ? type.getContentType() : null, id});
+      }
+      if (!updates.isEmpty()) {
+        transactionTemplate.executeWithoutResult(status -> {
+          jdbcTemplate.batchUpdate("UPDATE posts SET image_key = ?, image_content_type = ?, "
+              + "image_data = NULL WHERE id = ?", updates);
+          // Queued after commit, so the workers only ever see rows that point at the blob
+          for (Object[] update : updates) {
+            imageProcessingService.scheduleVariants((Long) update[2], (String) update[0]);
+          }
+        });
+        migrated += updates.size();
+      }
+    } while (ids.size() == BATCH_SIZE);
+    if (migrated > 0) {
+      log.info("Moved {} inline post images to the blob store", migrated);
+    }
+  }
+}
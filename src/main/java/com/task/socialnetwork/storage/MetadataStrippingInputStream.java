@@ -0,0 +1,277 @@
+package com.task.socialnetwork.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Streams an image while leaving out the metadata blocks that carry EXIF and XMP data, such as
+ * the GPS position, capture time or camera serial number of a photo. Pixel data and color
+ * profiles are copied unchanged. Only the block headers are parsed; payloads go through in
+ * chunks of the caller's size.
+ *
+ * <ul>
+ *   <li>JPEG: APP1 (EXIF, XMP), APP13 (IPTC) and comment segments are dropped. The EXIF
+ *   orientation is the one tag kept, in a minimal APP1 segment of its own, since photos taken
+ *   upright are often stored sideways and only turned by viewers that read it.</li>
+ *   <li>PNG: eXIf and text chunks are dropped.</li>
+ *   <li>WebP: EXIF and XMP chunks are blanked in place, because the RIFF header at the start
+ *   of the file already holds the total size; the extended header no longer flags them.</li>
+ *   <li>GIF has no EXIF and is copied as is.</li>
+ * </ul>
+ */
+final class MetadataStrippingInputStream extends InputStream {
+  private static final int JPEG_SOS = 0xDA;
+  private static final int JPEG_EOI = 0xD9;
+  private static final int JPEG_APP1 = 0xE1;
+  private static final Set<Integer> JPEG_DROPPED = Set.of(0xE1, 0xED, 0xFE);
+  private static final Set<String> PNG_DROPPED = Set.of("eXIf", "tEXt", "zTXt", "iTXt");
+  private static final Set<String> WEBP_BLANKED = Set.of("EXIF", "XMP ");
+  // RIFF readers skip chunks they do not know, JUNK is the conventional name for filler
+  private static final byte[] WEBP_FILLER = "JUNK".getBytes(StandardCharsets.US_ASCII);
+  private static final int WEBP_EXIF_FLAG = 0x08;
+  private static final int WEBP_XMP_FLAG = 0x04;
+
+  private final InputStream in;
+  private final ImageType type;
+
+  // Rewritten block headers waiting to be read
+  private byte[] pending = new byte[0];
+  private int pendingPos;
+  // Payload bytes of the current block still to copy, drop or replace with zeros
+  private long copyRemaining;
+  private long skipRemaining;
+  private long blankRemaining;
+  private boolean started;
+  private boolean passThrough;
+  private boolean finished;
+  private boolean orientationKept;
+
+  MetadataStrippingInputStream(InputStream in, ImageType type) {
+    this.in = in;
+    this.type = type;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    int n = read(single, 0, 1);
+    return n == -1 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    while (true) {
+      if (pendingPos < pending.length) {
+        int n = Math.min(len, pending.length - pendingPos);
+        System.arraycopy(pending, pendingPos, b, off, n);
+        pendingPos += n;
+        return n;
+      }
+      if (copyRemaining > 0 || blankRemaining > 0) {
+        boolean blank = copyRemaining == 0;
+        int n = in.read(b, off, (int) Math.min(len, blank ? blankRemaining : copyRemaining));
+        if (n == -1) {
+          return -1; // Truncated upload, keep what there is like before
+        }
+        if (blank) {
+          Arrays.fill(b, off, off + n, (byte) 0);
+          blankRemaining -= n;
+        } else {
+          copyRemaining -= n;
+        }
+        return n;
+      }
+      if (skipRemaining > 0) {
+        discard(skipRemaining);
+        skipRemaining = 0;
+      }
+      if (passThrough) {
+        return in.read(b, off, len);
+      }
+      if (finished) {
+        return -1;
+      }
+      nextBlock();
+    }
+  }
+
+  private void nextBlock() throws IOException {
+    if (!started) {
+      started = true;
+      switch (type) {
+        case JPEG -> emit(readHeader(2));
+        case PNG -> emit(readHeader(8));
+        case WEBP -> emit(readHeader(12));
+        default -> passThrough = true;
+      }
+      return;
+    }
+    switch (type) {
+      case JPEG -> nextJpegSegment();
+      case PNG -> nextPngChunk();
+      case WEBP -> nextWebpChunk();
+      default -> passThrough = true;
+    }
+  }
+
+  private void nextJpegSegment() throws IOException {
+    int prefix = in.read();
+    if (prefix == -1) {
+      finished = true;
+      return;
+    }
+    if (prefix != 0xFF) {
+      throw malformed();
+    }
+    int marker = in.read();
+    while (marker == 0xFF) {
+      marker = in.read(); // Fill bytes before the marker
+    }
+    if (marker == -1) {
+      throw malformed();
+    }
+    if (marker == JPEG_SOS || marker == JPEG_EOI) {
+      // Metadata comes before the image data, the rest is copied as is
+      emit(new byte[] {(byte) 0xFF, (byte) marker});
+      passThrough = true;
+      return;
+    }
+    if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+      emit(new byte[] {(byte) 0xFF, (byte) marker}); // Markers without a payload
+      return;
+    }
+    byte[] length = readHeader(2);
+    if (length == null) {
+      throw malformed();
+    }
+    int payload = (((length[0] & 0xFF) << 8) | (length[1] & 0xFF)) - 2;
+    if (payload < 0) {
+      throw malformed();
+    }
+    if (marker == JPEG_APP1 && !orientationKept) {
+      // At most 64 KB, read whole to find the orientation among the other tags
+      byte[] segment = in.readNBytes(payload);
+      if (segment.length < payload) {
+        throw malformed();
+      }
+      int orientation = ExifOrientation.parse(segment);
+      if (orientation != ExifOrientation.NORMAL) {
+        byte[] kept = ExifOrientation.segment(orientation);
+        int keptLength = kept.length + 2;
+        emit(concat(new byte[] {(byte) 0xFF, (byte) JPEG_APP1, (byte) (keptLength >> 8),
+            (byte) keptLength}, kept));
+        orientationKept = true;
+      }
+    } else if (JPEG_DROPPED.contains(marker)) {
+      skipRemaining = payload;
+    } else {
+      emit(new byte[] {(byte) 0xFF, (byte) marker, length[0], length[1]});
+      copyRemaining = payload;
+    }
+  }
+
+  private void nextPngChunk() throws IOException {
+    byte[] header = readHeader(8);
+    if (header == null) {
+      return;
+    }
+    long payload = readInt(header, 0) + 4; // Data and CRC
+    String chunkType = new String(header, 4, 4, StandardCharsets.US_ASCII);
+    if (PNG_DROPPED.contains(chunkType)) {
+      skipRemaining = payload;
+    } else {
+      emit(header);
+      copyRemaining = payload;
+      passThrough = chunkType.equals("IEND");
+    }
+  }
+
+  private void nextWebpChunk() throws IOException {
+    byte[] header = readHeader(8);
+    if (header == null) {
+      return;
+    }
+    long size = Integer.toUnsignedLong(readIntLittleEndian(header, 4));
+    long payload = size + (size & 1); // Chunks are padded to an even length
+    String fourCc = new String(header, 0, 4, StandardCharsets.US_ASCII);
+    if (WEBP_BLANKED.contains(fourCc)) {
+      System.arraycopy(WEBP_FILLER, 0, header, 0, 4);
+      emit(header);
+      blankRemaining = payload;
+    } else if (fourCc.equals("VP8X") && payload > 0) {
+      byte[] flags = readHeader(1);
+      if (flags == null) {
+        throw malformed();
+      }
+      flags[0] &= (byte) ~(WEBP_EXIF_FLAG | WEBP_XMP_FLAG);
+      emit(concat(header, flags));
+      copyRemaining = payload - 1;
+    } else {
+      emit(header);
+      copyRemaining = payload;
+    }
+  }
+
+  /**
+   * Reads a block header, or returns null at the end of the stream between two blocks.
+   */
+  private byte[] readHeader(int length) throws IOException {
+    byte[] header = in.readNBytes(length);
+    if (header.length == 0) {
+      finished = true;
+      return null;
+    }
+    if (header.length < length) {
+      throw malformed();
+    }
+    return header;
+  }
+
+  private void emit(byte[] bytes) {
+    if (bytes != null) {
+      pending = bytes;
+      pendingPos = 0;
+    }
+  }
+
+  private void discard(long n) throws IOException {
+    long remaining = n;
+    while (remaining > 0) {
+      long skipped = in.skip(remaining);
+      if (skipped <= 0) {
+        if (in.read() == -1) {
+          finished = true;
+          return;
+        }
+        skipped = 1;
+      }
+      remaining -= skipped;
+    }
+  }
+
+  private IllegalArgumentException malformed() {
+    return new IllegalArgumentException("Malformed " + type.name() + " image");
+  }
+
+  private static long readInt(byte[] bytes, int offset) {
+    return ((long) (bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+        | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+  }
+
+  private static int readIntLittleEndian(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xFF) | ((bytes[offset + 1] & 0xFF) << 8)
+        | ((bytes[offset + 2] & 0xFF) << 16) | ((bytes[offset + 3] & 0xFF) << 24);
+  }
+
+  private static byte[] concat(byte[] first, byte[] second) {
+    byte[] result = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, result, first.length, second.length);
+    return result;
+  }
+}
@@ -0,0 +1,13 @@
+package com.task.socialnetwork.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.core.io.Resource;
+
+@Data
+@AllArgsConstructor
+public class StoredImage {
+  private String key; // Content hash, doubles as the HTTP ETag
+  private String contentType;
+  private Resource resource;
+}
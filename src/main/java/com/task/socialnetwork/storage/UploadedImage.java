@@ -0,0 +1,11 @@
+package com.task.socialnetwork.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UploadedImage {
+  private String key;
+  private String contentType; // Detected from the content, not taken from the client
+}
@@ -0,0 +1,63 @@
+package com.task.socialnetwork.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small in-process cache with a hard size bound (least recently used entries are evicted first)
+ * and a per-entry expiry time. Hit and miss counts are tracked for metrics.
+ */
+public class ExpiringLruCache<K, V> {
+  private final Map<K, Entry<V>> entries; // Guarded by this
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public ExpiringLruCache(int maxSize) {
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  public V get(K key) {
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      Entry<V> entry = entries.get(key);
+      if (entry != null && entry.expiresAt > now) {
+        hits.increment();
+        return entry.value;
+      }
+      if (entry != null) {
+        entries.remove(key);
+      }
+    }
+    misses.increment();
+    return null;
+  }
+
+  public synchronized void put(K key, V value, long expiresAtMillis) {
+    entries.put(key, new Entry<>(value, expiresAtMillis));
+  }
+
+  public synchronized void invalidate(K key) {
+    entries.remove(key);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  public long missCount() {
+    return misses.sum();
+  }
+
+  private record Entry<V>(V value, long expiresAt) {
+  }
+}
@@ -0,0 +1,72 @@
+package com.task.socialnetwork.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class PaginationUtil {
+  private static final String SEPARATOR = "|";
+  private static final String INVALID_CURSOR = "Invalid cursor";
+
+  // Cursors are opaque to clients: URL-safe Base64 of the sort key parts joined by '|'
+  public static String encodeCursor(Object... parts) {
+    String raw = Arrays.stream(parts)
+        .map(String::valueOf)
+        .collect(Collectors.joining(SEPARATOR));
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static String[] decodeCursor(String cursor, int expectedParts) {
+    String raw;
+    try {
+      raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(INVALID_CURSOR);
+    }
+    String[] parts = raw.split(Pattern.quote(SEPARATOR), -1);
+    if (parts.length != expectedParts) {
+      throw new IllegalArgumentException(INVALID_CURSOR);
+    }
+    return parts;
+  }
+
+  public static long parseLongPart(String part) {
+    try {
+      return Long.parseLong(part);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(INVALID_CURSOR);
+    }
+  }
+
+  public static double parseDoublePart(String part) {
+    try {
+      return Double.parseDouble(part);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(INVALID_CURSOR);
+    }
+  }
+
+  public static LocalDateTime parseTimestampPart(String part) {
+    try {
+      return LocalDateTime.parse(part);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException(INVALID_CURSOR);
+    }
+  }
+
+  // Falls back to the default when no size is requested and never exceeds the hard maximum
+  public static int resolvePageSize(Integer requested, int defaultSize, int maxSize) {
+    if (requested == null) {
+      return defaultSize;
+    }
+    if (requested < 1) {
+      throw new IllegalArgumentException("Page size must be greater than zero");
+    }
+    return Math.min(requested, maxSize);
+  }
+}
@@ -0,0 +1,124 @@
+package com.task.socialnetwork.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.task.socialnetwork.error.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Admission of the hashing pool with a single worker and no queue.
+ */
+class OffloadingPasswordEncoderTest {
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutorService callers = Executors.newSingleThreadExecutor();
+  private final CountDownLatch hashStarted = new CountDownLatch(1);
+  private final CountDownLatch releaseHash = new CountDownLatch(1);
+
+  private OffloadingPasswordEncoder encoder;
+  private String hash;
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    releaseHash.countDown();
+    callers.shutdownNow();
+    if (encoder != null) {
+      encoder.close();
+    }
+  }
+
+  @Test
+  void testSecondCallerIsRejectedWhileTheWorkerIsBusy() throws Exception {
+    start(Duration.ofSeconds(5));
+    Future<Boolean> first = callers.submit(() -> encoder.matches(blockingPassword(), hash));
+    assertThat(hashStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThatThrownBy(() -> encoder.matches("secret", hash))
+        .isInstanceOf(ServiceUnavailableException.class);
+    assertThat(rejected()).isEqualTo(1);
+
+    releaseHash.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void testTimedOutCallerKeepsItsPermitUntilTheHashEnds() throws Exception {
+    start(Duration.ofMillis(200));
+    Future<Boolean> first = callers.submit(() -> encoder.matches(blockingPassword(), hash));
+    assertThat(hashStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(ServiceUnavailableException.class);
+    assertThat(rejected()).isEqualTo(1);
+
+    // The caller gave up, but BCrypt still holds the only worker
+    assertThatThrownBy(() -> encoder.matches("secret", hash))
+        .isInstanceOf(ServiceUnavailableException.class);
+    assertThat(rejected()).isEqualTo(2);
+
+    releaseHash.countDown();
+    awaitIdle();
+    assertThat(encoder.matches("secret", hash)).isTrue();
+    assertThat(encoder.matches("wrong", hash)).isFalse();
+    assertThat(rejected()).isEqualTo(2);
+  }
+
+  private void start(Duration maxWait) {
+    encoder = new OffloadingPasswordEncoder(4, 1, 0, maxWait, meterRegistry);
+    hash = encoder.encode("secret");
+  }
+
+  // BCrypt reads the raw password on the worker, which lets the test hold the worker there
+  private CharSequence blockingPassword() {
+    String password = "secret";
+    return new CharSequence() {
+      @Override
+      public int length() {
+        return password.length();
+      }
+
+      @Override
+      public char charAt(int index) {
+        return password.charAt(index);
+      }
+
+      @Override
+      public CharSequence subSequence(int start, int end) {
+        return password.subSequence(start, end);
+      }
+
+      @Override
+      public String toString() {
+        hashStarted.countDown();
+        try {
+          releaseHash.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return password;
+      }
+    };
+  }
+
+  // The permit is released inside the task, so no active worker means it is back
+  private void awaitIdle() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (meterRegistry.get("password.hash.active").gauge().value() > 0) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+
+  private double rejected() {
+    return meterRegistry.get("password.hash.rejected").counter().count();
+  }
+}
@@ -0,0 +1,61 @@
+package com.task.socialnetwork.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task.socialnetwork.dto.AuthRequestDTO;
+import com.task.socialnetwork.dto.AuthResponseDTO;
+import com.task.socialnetwork.dto.PostResponseDTO;
+import com.task.socialnetwork.dto.RegistrationRequestDTO;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Account and post setup through the public API, shared by the MockMvc integration tests.
+ */
+class ApiTestClient {
+  static final String PASSWORD = "password123";
+
+  private final MockMvc mockMvc;
+  private final ObjectMapper objectMapper;
+
+  ApiTestClient(MockMvc mockMvc, ObjectMapper objectMapper) {
+    this.mockMvc = mockMvc;
+    this.objectMapper = objectMapper;
+  }
+
+  String registerAndLogin(String username, String email) throws Exception {
+    RegistrationRequestDTO registrationRequest = new RegistrationRequestDTO();
+    registrationRequest.setUsername(username);
+    registrationRequest.setEmail(email);
+    registrationRequest.setPassword(PASSWORD);
+    mockMvc.perform(post("/api/auth/register")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(registrationRequest)))
+        .andExpect(status().isOk());
+    return login(username, PASSWORD);
+  }
+
+  String login(String username, String password) throws Exception {
+    AuthRequestDTO loginRequest = new AuthRequestDTO();
+    loginRequest.setUsername(username);
+    loginRequest.setPassword(password);
+    String response = mockMvc.perform(post("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(loginRequest)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return objectMapper.readValue(response, AuthResponseDTO.class).getToken();
+  }
+
+  Long createPost(String token, String content) throws Exception {
+    String response = mockMvc.perform(multipart("/api/posts")
+            .param("content", content)
+            .header("Authorization", "Bearer " + token))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    return objectMapper.readValue(response, PostResponseDTO.class).getId();
+  }
+}
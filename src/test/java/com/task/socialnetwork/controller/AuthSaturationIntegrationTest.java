@@ -0,0 +1,64 @@
+package com.task.socialnetwork.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task.socialnetwork.dto.AuthRequestDTO;
+import com.task.socialnetwork.error.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Sign-ins while the password hashing pool is saturated.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+class AuthSaturationIntegrationTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @MockBean
+  private PasswordEncoder passwordEncoder;
+
+  @Test
+  void testLoginOfUnknownUserReportsSaturationAs503() throws Exception {
+    // The dummy hash for an unknown user comes back wrapped in an authentication exception
+    when(passwordEncoder.encode(any()))
+        .thenThrow(new ServiceUnavailableException("Too many sign-in requests"));
+    when(passwordEncoder.matches(any(), anyString()))
+        .thenThrow(new ServiceUnavailableException("Too many sign-in requests"));
+
+    AuthRequestDTO loginRequest = new AuthRequestDTO();
+    loginRequest.setUsername("nobody");
+    loginRequest.setPassword("secret");
+
+    mockMvc.perform(post("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(loginRequest)))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+        .andExpect(jsonPath("$.error").value("Service Unavailable"));
+  }
+}
@@ -0,0 +1,120 @@
+package com.task.socialnetwork.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task.socialnetwork.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@TestPropertySource(properties = {
+    "timeline.celebrity-threshold=2",
+    "timeline.celebrity-cache.posts-per-author=2"
+})
+class CelebrityTimelineIntegrationTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private ApiTestClient api;
+  private String authToken;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    api = new ApiTestClient(mockMvc, objectMapper);
+    authToken = api.login("admin", "admin");
+    assertThat(authToken).isNotNull();
+  }
+
+  @Test
+  void testPostsOfAccountsAboveThresholdAreMergedAtReadTime() throws Exception {
+    String authorToken = api.registerAndLogin("popularAuthor", "popular@example.com");
+    String followerToken = api.registerAndLogin("secondFollower", "second@example.com");
+    Long authorId = userRepository.findByUsername("popularAuthor").orElseThrow().getId();
+    for (String token : List.of(authToken, followerToken)) {
+      follow(token, authorId);
+    }
+    api.createPost(authorToken, "Too many followers to fan out");
+
+    // Only the author's own timeline gets a row, followers see the post through the merge
+    Integer fannedOut = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM home_timeline h "
+        + "JOIN posts p ON p.id = h.post_id WHERE p.user_id = ?", Integer.class, authorId);
+    assertThat(fannedOut).isEqualTo(1);
+    mockMvc.perform(get("/api/posts/timeline")
+            .header("Authorization", "Bearer " + authToken))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items[*].content")
+            .value(hasItem("Too many followers to fan out")));
+  }
+
+  @Test
+  void testPagingPastCachedWindowReadsOlderCelebrityPosts() throws Exception {
+    String authorToken = api.registerAndLogin("deepAuthor", "deep@example.com");
+    String firstFan = api.registerAndLogin("deepFanOne", "deepone@example.com");
+    String secondFan = api.registerAndLogin("deepFanTwo", "deeptwo@example.com");
+    Long authorId = userRepository.findByUsername("deepAuthor").orElseThrow().getId();
+    follow(firstFan, authorId);
+    follow(secondFan, authorId);
+    for (int i = 1; i <= 4; i++) {
+      api.createPost(authorToken, "Deep post " + i);
+    }
+
+    // Only the two newest posts fit the cache, the rest must come from the posts table
+    List<String> contents = new ArrayList<>();
+    String cursor = null;
+    do {
+      MockHttpServletRequestBuilder request = get("/api/posts/timeline")
+          .param("size", "1")
+          .header("Authorization", "Bearer " + firstFan);
+      if (cursor != null) {
+        request.param("cursor", cursor);
+      }
+      String response = mockMvc.perform(request)
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString();
+      JsonNode page = objectMapper.readTree(response);
+      page.get("items").forEach(item -> contents.add(item.get("content").asText()));
+      cursor = page.get("hasMore").asBoolean() ? page.get("nextCursor").asText() : null;
+    } while (cursor != null);
+
+    assertThat(contents)
+        .containsExactly("Deep post 4", "Deep post 3", "Deep post 2", "Deep post 1");
+  }
+
+  private void follow(String token, Long userId) throws Exception {
+    mockMvc.perform(post("/api/user/" + userId + "/follow")
+            .header("Authorization", "Bearer " + token))
+        .andExpect(status().isNoContent());
+  }
+}
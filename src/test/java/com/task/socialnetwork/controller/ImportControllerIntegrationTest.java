@@ -0,0 +1,120 @@
+package com.task.socialnetwork.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task.socialnetwork.dto.AuthRequestDTO;
+import com.task.socialnetwork.dto.AuthResponseDTO;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {"import.batch-size=2", "import.max-line-bytes=4096"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+class ImportControllerIntegrationTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private String authToken;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    AuthRequestDTO loginRequest = new AuthRequestDTO();
+    loginRequest.setUsername("admin");
+    loginRequest.setPassword("admin");
+
+    String response = mockMvc.perform(post("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(loginRequest)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    authToken = objectMapper.readValue(response, AuthResponseDTO.class).getToken();
+  }
+
+  @Test
+  void testImportWritesValidLinesAndReportsRejectedOnes() throws Exception {
+    String body = String.join("\n",
+        "{\"authorId\": 100, \"content\": \"Imported first\", \"likes\": [100],"
+            + " \"comments\": [{\"userId\": 100, \"content\": \"Imported comment\"}]}",
+        "{\"authorId\": 100, \"content\": \"\"}",
+        "{\"authorId\": 999999, \"content\": \"Unknown author\"}",
+        "{\"authorId\": 100, \"content\": \"Imported second\", \"likes\": [100],"
+            + " \"createdAt\": \"2020-01-01T12:00:00\"}");
+
+    mockMvc.perform(post("/api/admin/import/posts")
+            .header("Authorization", "Bearer " + authToken)
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.linesRead").value(4))
+        .andExpect(jsonPath("$.postsImported").value(2))
+        .andExpect(jsonPath("$.commentsImported").value(1))
+        .andExpect(jsonPath("$.likesImported").value(2))
+        .andExpect(jsonPath("$.linesRejected").value(2))
+        .andExpect(jsonPath("$.aborted").value(false))
+        .andExpect(jsonPath("$.errors.length()").value(2));
+
+    assertThat(jdbcTemplate.queryForObject(
+        "SELECT like_count FROM posts WHERE content = 'Imported first'", Long.class))
+        .isEqualTo(1);
+    assertThat(jdbcTemplate.queryForObject(
+        "SELECT comment_count FROM posts WHERE content = 'Imported first'", Long.class))
+        .isEqualTo(1);
+    // Likes on imported history keep its time instead of looking fresh
+    assertThat(jdbcTemplate.queryForObject("SELECT l.created_at FROM post_likes l "
+        + "JOIN posts p ON p.id = l.post_id WHERE p.content = 'Imported second'",
+        LocalDateTime.class)).isEqualTo(LocalDateTime.of(2020, 1, 1, 12, 0));
+  }
+
+  @Test
+  void testImportStopsAtMalformedLine() throws Exception {
+    String body = "{\"authorId\": 100, \"content\": \"Before the broken line\"}\n"
+        + "{\"authorId\": 100, \"content\": \"Unterminated}\n"
+        + "{\"authorId\": 100, \"content\": \"After the broken line\"}";
+
+    mockMvc.perform(post("/api/admin/import/posts")
+            .header("Authorization", "Bearer " + authToken)
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.postsImported").value(1))
+        .andExpect(jsonPath("$.aborted").value(true));
+  }
+
+  @Test
+  void testImportStopsAtOverlongLine() throws Exception {
+    String body = "{\"authorId\": 100, \"content\": \"Before the long line\"}\n"
+        + "{\"authorId\": 100, \"content\": \"" + "x".repeat(5000) + "\"}\n"
+        + "{\"authorId\": 100, \"content\": \"After the long line\"}";
+
+    mockMvc.perform(post("/api/admin/import/posts")
+            .header("Authorization", "Bearer " + authToken)
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.postsImported").value(1))
+        .andExpect(jsonPath("$.aborted").value(true))
+        .andExpect(jsonPath("$.errors[0]").value("Line 2: Line is longer than 4096 bytes"));
+  }
+}
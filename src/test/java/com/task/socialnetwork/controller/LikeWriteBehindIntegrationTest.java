@@ -0,0 +1,173 @@
+package com.task.socialnetwork.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task.socialnetwork.dto.AuthRequestDTO;
+import com.task.socialnetwork.dto.AuthResponseDTO;
+import com.task.socialnetwork.dto.PostResponseDTO;
+import com.task.socialnetwork.repository.PostLikeBatchRepository;
+import com.task.socialnetwork.service.LikeWriteBehindBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.FileSystemUtils;
+
+// The scheduled flush is pushed far out so the test decides when pending likes are written
+@SpringBootTest(properties = {
+    "likes.write-behind.enabled=true",
+    "likes.write-behind.flush-interval=PT1H",
+    "likes.write-behind.journal-dir=" + LikeWriteBehindIntegrationTest.JOURNAL_DIR
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+class LikeWriteBehindIntegrationTest extends AbstractIntegrationTest {
+  static final String JOURNAL_DIR = "build/tmp/like-journal-test";
+
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private LikeWriteBehindBuffer likeWriteBehindBuffer;
+
+  @Autowired
+  private PostLikeBatchRepository likeBatchRepository;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private String authToken;
+
+  @AfterAll
+  static void deleteJournal() throws IOException {
+    FileSystemUtils.deleteRecursively(Path.of(JOURNAL_DIR));
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    AuthRequestDTO loginRequest = new AuthRequestDTO();
+    loginRequest.setUsername("admin");
+    loginRequest.setPassword("admin");
+
+    String response = mockMvc.perform(post("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(loginRequest)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    authToken = objectMapper.readValue(response, AuthResponseDTO.class).getToken();
+  }
+
+  @Test
+  void testBufferedLikesAreVisibleAndWrittenOnFlush() throws Exception {
+    String response = mockMvc.perform(multipart("/api/posts")
+            .param("content", "Liked through the write-behind buffer")
+            .header("Authorization", "Bearer " + authToken))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    Long postId = objectMapper.readValue(response, PostResponseDTO.class).getId();
+
+    // Three toggles collapse into a single pending like
+    for (int i = 0; i < 3; i++) {
+      mockMvc.perform(post("/api/posts/" + postId + "/like")
+              .header("Authorization", "Bearer " + authToken))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.liked").value(i % 2 == 0))
+          .andExpect(jsonPath("$.likeCount").value(i % 2 == 0 ? 1 : 0));
+    }
+    assertThat(likeRows(postId)).isZero();
+
+    likeWriteBehindBuffer.flush();
+
+    assertThat(likeRows(postId)).isEqualTo(1);
+    assertThat(jdbcTemplate.queryForObject("SELECT like_count FROM posts WHERE id = ?",
+        Long.class, postId)).isEqualTo(1);
+    assertThat(likeWriteBehindBuffer.pendingDelta(postId)).isZero();
+  }
+
+  @Test
+  void testJournalLeftByCrashIsReplayedAndFlushed() throws Exception {
+    Long postId = createPost("Liked right before a crash");
+    Long adminId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'admin'",
+        Long.class);
+
+    // A segment as a crashed process leaves it: one complete record, one torn by the crash
+    Path dir = Path.of(JOURNAL_DIR, "crashed");
+    Files.createDirectories(dir);
+    Path segment = dir.resolve("likes-7.journal");
+    Files.writeString(segment, postId + "," + adminId + "," + adminId + ",1,"
+        + LocalDateTime.now().minusMinutes(1) + "\n" + postId + ",", StandardCharsets.UTF_8);
+
+    LikeWriteBehindBuffer restarted = new LikeWriteBehindBuffer(likeBatchRepository,
+        eventPublisher, transactionManager, new SimpleMeterRegistry(), true, 100, 10,
+        dir.toString());
+    restarted.recover();
+    try {
+      assertThat(restarted.pendingState(postId, adminId)).isTrue();
+      assertThat(restarted.pendingDelta(postId)).isEqualTo(1);
+      assertThat(likeRows(postId)).isZero();
+
+      restarted.flush();
+
+      assertThat(likeRows(postId)).isEqualTo(1);
+      assertThat(restarted.pendingState(postId, adminId)).isNull();
+      assertThat(segment).doesNotExist();
+    } finally {
+      restarted.shutdown();
+    }
+  }
+
+  @Test
+  void testRecoverRequiresJournalDir() {
+    LikeWriteBehindBuffer unconfigured = new LikeWriteBehindBuffer(likeBatchRepository,
+        eventPublisher, transactionManager, new SimpleMeterRegistry(), true, 100, 10, "");
+
+    assertThatThrownBy(unconfigured::recover).isInstanceOf(IllegalStateException.class);
+  }
+
+  private Long createPost(String content) throws Exception {
+    String response = mockMvc.perform(multipart("/api/posts")
+            .param("content", content)
+            .header("Authorization", "Bearer " + authToken))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    return objectMapper.readValue(response, PostResponseDTO.class).getId();
+  }
+
+  private Integer likeRows(Long postId) {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM post_likes WHERE post_id = ?",
+        Integer.class, postId);
+  }
+}
@@ -11,12 +11,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -57,7 +71,7 @@ class PostControllerIntegrationTest extends AbstractIntegrationTest {
     @Test
     void testCreatePost() throws Exception {
         MockMultipartFile image = new MockMultipartFile("image", "test_image.png",
-            MediaType.TEXT_PLAIN_VALUE, "ImageBytes".getBytes());
+            MediaType.IMAGE_PNG_VALUE, testImageBytes());
 
        String response = mockMvc.perform(multipart("/api/posts")
                 .file(image)
@@ -65,6 +79,7 @@ class PostControllerIntegrationTest extends AbstractIntegrationTest {
                 .header("Authorization", "Bearer " + authToken))
             .andExpect(status().isCreated())
             .andExpect(jsonPath("$.content").value("My first post"))
+            .andExpect(jsonPath("$.imageUrl").exists())
            .andReturn().getResponse().getContentAsString();
 
         PostResponseDTO responseDTO = objectMapper.readValue(response, PostResponseDTO.class);
@@ -84,15 +99,255 @@ class PostControllerIntegrationTest extends AbstractIntegrationTest {
             .andExpect(jsonPath("$.id").value(createdPostId));
     }
 
+    @Test
+    void testGetPostImage() throws Exception {
+        if (createdPostId == null) {
+            testCreatePost();
+        }
+
+        String etag = mockMvc.perform(get("/api/posts/" + createdPostId + "/image")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.IMAGE_PNG))
+            .andExpect(content().bytes(testImageBytes()))
+            .andExpect(header().exists("ETag"))
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/posts/" + createdPostId + "/image")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/posts/" + createdPostId + "/image")
+                .header("Authorization", "Bearer " + authToken)
+                .header("Range", "bytes=1-3"))
+            .andExpect(status().isPartialContent())
+            .andExpect(content().bytes("PNG".getBytes()));
+    }
+
+    @Test
+    void testGetPostImageThumbnailVariant() throws Exception {
+        if (createdPostId == null) {
+            testCreatePost();
+        }
+
+        // Served from the thumbnail once processed, from the original until then
+        mockMvc.perform(get("/api/posts/" + createdPostId + "/image")
+                .header("Authorization", "Bearer " + authToken)
+                .param("variant", "THUMBNAIL"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"));
+    }
+
+    @Test
+    void testCreatePostRejectsNonImageUpload() throws Exception {
+        MockMultipartFile notAnImage = new MockMultipartFile("image", "notes.png",
+            MediaType.IMAGE_PNG_VALUE, "ImageBytes".getBytes());
+
+        mockMvc.perform(multipart("/api/posts")
+                .file(notAnImage)
+                .param("content", "Not really an image")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testUploadedOriginalKeepsNoExifMetadata() throws Exception {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB), "jpeg", encoded);
+        byte[] plain = encoded.toByteArray();
+        // An APP1 segment right after the start-of-image marker, as cameras write it
+        byte[] exif = "Exif\0\0GPS 52.37N 4.89E".getBytes(StandardCharsets.ISO_8859_1);
+        ByteArrayOutputStream photo = new ByteArrayOutputStream();
+        photo.write(plain, 0, 2);
+        photo.write(new byte[] {(byte) 0xFF, (byte) 0xE1, 0, (byte) (exif.length + 2)});
+        photo.write(exif);
+        photo.write(plain, 2, plain.length - 2);
+        MockMultipartFile image = new MockMultipartFile("image", "photo.jpg",
+            MediaType.IMAGE_JPEG_VALUE, photo.toByteArray());
+
+        String response = mockMvc.perform(multipart("/api/posts")
+                .file(image)
+                .param("content", "Holiday photo")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        Long postId = objectMapper.readValue(response, PostResponseDTO.class).getId();
+
+        byte[] stored = mockMvc.perform(get("/api/posts/" + postId + "/image")
+                .header("Authorization", "Bearer " + authToken)
+                .param("variant", "ORIGINAL"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+        assertThat(stored).isEqualTo(plain);
+        assertThat(ImageIO.read(new ByteArrayInputStream(stored))).isNotNull();
+    }
+
+    @Test
+    void testOrientationIsKeptAndAppliedToVariants() throws Exception {
+        // Stored sideways, as a phone held upright writes it: 40x20 pixels, orientation 6
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB), "jpeg", encoded);
+        byte[] plain = encoded.toByteArray();
+        byte[] tiff = {'I', 'I', 42, 0, 8, 0, 0, 0, 1, 0,
+            0x12, 0x01, 3, 0, 1, 0, 0, 0, 6, 0, 0, 0, 0, 0, 0, 0};
+        ByteArrayOutputStream exif = new ByteArrayOutputStream();
+        exif.write("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1));
+        exif.write(tiff);
+        exif.write("GPS 52.37N 4.89E".getBytes(StandardCharsets.ISO_8859_1));
+        ByteArrayOutputStream photo = new ByteArrayOutputStream();
+        photo.write(plain, 0, 2);
+        photo.write(new byte[] {(byte) 0xFF, (byte) 0xE1, 0, (byte) (exif.size() + 2)});
+        exif.writeTo(photo);
+        photo.write(plain, 2, plain.length - 2);
+
+        String response = mockMvc.perform(multipart("/api/posts")
+                .file(new MockMultipartFile("image", "portrait.jpg",
+                    MediaType.IMAGE_JPEG_VALUE, photo.toByteArray()))
+                .param("content", "Portrait photo")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        Long postId = objectMapper.readValue(response, PostResponseDTO.class).getId();
+
+        byte[] stored = mockMvc.perform(get("/api/posts/" + postId + "/image")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+        String storedText = new String(stored, StandardCharsets.ISO_8859_1);
+        assertThat(storedText).contains("Exif").doesNotContain("GPS");
+        assertThat(ImageIO.read(new ByteArrayInputStream(stored))).isNotNull();
+
+        // Variants are made in the background
+        PostResponseDTO processed = null;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String body = mockMvc.perform(get("/api/posts/" + postId)
+                    .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+            processed = objectMapper.readValue(body, PostResponseDTO.class);
+            if (processed.getImageWidth() != null) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        assertThat(processed.getImageWidth()).isEqualTo(20);
+        assertThat(processed.getImageHeight()).isEqualTo(40);
+
+        byte[] thumbnail = mockMvc.perform(get("/api/posts/" + postId + "/image")
+                .header("Authorization", "Bearer " + authToken)
+                .param("variant", "THUMBNAIL"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+        BufferedImage upright = ImageIO.read(new ByteArrayInputStream(thumbnail));
+        assertThat(upright.getWidth()).isEqualTo(20);
+        assertThat(upright.getHeight()).isEqualTo(40);
+    }
+
+    private byte[] testImageBytes() throws IOException {
+        try (InputStream in = new ClassPathResource("test_image.png").getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
     @Test
     void testLikePost() throws Exception {
         if (createdPostId == null) {
             testCreatePost();
         }
 
+        mockMvc.perform(post("/api/posts/" + createdPostId + "/like")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.liked").value(true))
+            .andExpect(jsonPath("$.likeCount").value(1));
+
+        mockMvc.perform(post("/api/posts/" + createdPostId + "/like")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.liked").value(false))
+            .andExpect(jsonPath("$.likeCount").value(0));
+    }
+
+    @Test
+    void testConcurrentLikeTogglesKeepCountConsistent() throws Exception {
+        if (createdPostId == null) {
+            testCreatePost();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            results.add(executor.submit(() -> mockMvc.perform(
+                    post("/api/posts/" + createdPostId + "/like")
+                        .header("Authorization", "Bearer " + authToken))
+                .andReturn().getResponse().getStatus()));
+        }
+        for (Future<Integer> result : results) {
+            assertThat(result.get()).isEqualTo(200);
+        }
+        executor.shutdown();
+
+        // Whatever the interleaving, the counter must match the rows in post_likes
+        String response = mockMvc.perform(get("/api/posts/" + createdPostId)
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        PostResponseDTO post = objectMapper.readValue(response, PostResponseDTO.class);
+        mockMvc.perform(get("/api/posts/" + createdPostId + "/likes")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value((int) post.getLikeCount()));
+        assertThat(post.isLikedByMe()).isEqualTo(post.getLikeCount() == 1);
+    }
+
+    @Test
+    void testLikedByMeAndLikersPage() throws Exception {
+        testCreatePost();
+        mockMvc.perform(post("/api/posts/" + createdPostId + "/like")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/posts/" + createdPostId)
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.likeCount").value(1))
+            .andExpect(jsonPath("$.likedByMe").value(true))
+            .andExpect(jsonPath("$.likes").doesNotExist());
+
+        mockMvc.perform(get("/api/posts/" + createdPostId + "/likes")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(1))
+            .andExpect(jsonPath("$.items[0].username").value("admin"))
+            .andExpect(jsonPath("$.items[0].likedAt").exists())
+            .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void testLikeIsCountedInEngagementSeries() throws Exception {
+        testCreatePost();
         mockMvc.perform(post("/api/posts/" + createdPostId + "/like")
                 .header("Authorization", "Bearer " + authToken))
             .andExpect(status().isOk());
+
+        String response = mockMvc.perform(get("/api/statistics/posts/" + createdPostId + "/engagement")
+                .header("Authorization", "Bearer " + authToken)
+                .param("metric", "LIKES")
+                .param("granularity", "MINUTE"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(60))
+            .andReturn().getResponse().getContentAsString();
+        long likes = objectMapper.readTree(response).findValues("count").stream()
+            .mapToLong(node -> node.asLong())
+            .sum();
+        assertThat(likes).isEqualTo(1);
+
+        mockMvc.perform(get("/api/statistics/trending")
+                .header("Authorization", "Bearer " + authToken)
+                .param("limit", "100"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.postId == " + createdPostId + ")].likes").value(1));
     }
 
     @Test
@@ -112,6 +367,50 @@ class PostControllerIntegrationTest extends AbstractIntegrationTest {
             .andExpect(jsonPath("$.content").value("Nice post!"));
     }
 
+    @Test
+    void testGetCommentsPageAndPreview() throws Exception {
+        testCreatePost();
+        for (int i = 1; i <= 5; i++) {
+            AddCommentDTO comment = new AddCommentDTO();
+            comment.setContent("Comment " + i);
+            mockMvc.perform(post("/api/posts/" + createdPostId + "/comments")
+                    .header("Authorization", "Bearer " + authToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(comment)))
+                .andExpect(status().isCreated());
+        }
+
+        // The post only embeds the newest comments, oldest of them first
+        mockMvc.perform(get("/api/posts/" + createdPostId)
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.commentCount").value(5))
+            .andExpect(jsonPath("$.latestComments.length()").value(3))
+            .andExpect(jsonPath("$.latestComments[0].content").value("Comment 3"))
+            .andExpect(jsonPath("$.latestComments[2].content").value("Comment 5"));
+
+        String response = mockMvc.perform(get("/api/posts/" + createdPostId + "/comments")
+                .header("Authorization", "Bearer " + authToken)
+                .param("size", "3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(3))
+            .andExpect(jsonPath("$.items[0].content").value("Comment 1"))
+            .andExpect(jsonPath("$.items[0].user.username").value("admin"))
+            .andExpect(jsonPath("$.hasMore").value(true))
+            .andReturn().getResponse().getContentAsString();
+
+        String nextCursor = objectMapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/posts/" + createdPostId + "/comments")
+                .header("Authorization", "Bearer " + authToken)
+                .param("size", "3")
+                .param("cursor", nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(2))
+            .andExpect(jsonPath("$.items[0].content").value("Comment 4"))
+            .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
     @Test
     void testGetNewsFeed() throws Exception {
         mockMvc.perform(get("/api/posts/feed")
@@ -119,4 +418,53 @@ class PostControllerIntegrationTest extends AbstractIntegrationTest {
                 .param("filter", "TIME"))
             .andExpect(status().isOk());
     }
+
+    @Test
+    void testGetNewsFeedPage() throws Exception {
+        testCreatePost();
+        testCreatePost();
+
+        String response = mockMvc.perform(get("/api/posts/feed")
+                .header("Authorization", "Bearer " + authToken)
+                .param("filter", "TIME")
+                .param("size", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(1))
+            .andExpect(jsonPath("$.hasMore").value(true))
+            .andReturn().getResponse().getContentAsString();
+
+        String nextCursor = objectMapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/posts/feed")
+                .header("Authorization", "Bearer " + authToken)
+                .param("filter", "TIME")
+                .param("size", "1")
+                .param("cursor", nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(1));
+    }
+
+    @Test
+    void testGetTrendingFeedIncludesRecentlyLikedPost() throws Exception {
+        testCreatePost();
+        mockMvc.perform(post("/api/posts/" + createdPostId + "/like")
+                .header("Authorization", "Bearer " + authToken))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/posts/feed")
+                .header("Authorization", "Bearer " + authToken)
+                .param("filter", "TRENDING")
+                .param("size", "100"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[?(@.id == " + createdPostId + ")]").exists());
+    }
+
+    @Test
+    void testGetNewsFeedWithInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/posts/feed")
+                .header("Authorization", "Bearer " + authToken)
+                .param("filter", "TIME")
+                .param("cursor", "not-a-cursor"))
+            .andExpect(status().isBadRequest());
+    }
 }
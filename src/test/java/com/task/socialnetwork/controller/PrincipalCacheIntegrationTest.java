@@ -0,0 +1,117 @@
+package com.task.socialnetwork.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.service.PrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Requests that reuse a token after its user changed must not see the cached principal.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+class PrincipalCacheIntegrationTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private PrincipalCache principalCache;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private ApiTestClient api;
+
+  @BeforeEach
+  void setUp() {
+    api = new ApiTestClient(mockMvc, objectMapper);
+  }
+
+  @Test
+  void testRoleChangeIsSeenByTheNextRequest() throws Exception {
+    String token = api.registerAndLogin("promotedUser", "promoted@example.com");
+    double hits = hits();
+    double misses = misses();
+
+    listUsers(token).andExpect(status().isForbidden());
+    assertThat(misses()).isEqualTo(misses + 1);
+    listUsers(token).andExpect(status().isForbidden());
+    assertThat(hits()).isEqualTo(hits + 1);
+
+    // There is no endpoint for roles, an admin changes them in the database
+    transactionTemplate.executeWithoutResult(status -> {
+      jdbcTemplate.update("UPDATE users SET role = 'ROLE_ADMIN' WHERE username = ?",
+          "promotedUser");
+      principalCache.invalidate("promotedUser");
+    });
+
+    listUsers(token).andExpect(status().isOk());
+    assertThat(misses()).isEqualTo(misses + 2);
+    assertThat(hits()).isEqualTo(hits + 1);
+  }
+
+  @Test
+  void testDeletedUserIsNotServedFromTheCache() throws Exception {
+    String token = api.registerAndLogin("cachedLeaver", "leaver@example.com");
+    Long userId = userRepository.findByUsername("cachedLeaver").orElseThrow().getId();
+    getUser(token, userId).andExpect(status().isOk());
+    double misses = misses();
+
+    // Served from the cache, the deletion must drop the entry
+    mockMvc.perform(delete("/api/user/" + userId)
+            .header("Authorization", "Bearer " + token))
+        .andExpect(status().isNoContent());
+
+    getUser(token, userId).andExpect(status().isForbidden());
+    assertThat(misses()).isEqualTo(misses + 1);
+  }
+
+  private ResultActions listUsers(String token) throws Exception {
+    return mockMvc.perform(get("/api/user").header("Authorization", "Bearer " + token));
+  }
+
+  private ResultActions getUser(String token, Long userId) throws Exception {
+    return mockMvc.perform(get("/api/user/" + userId)
+        .header("Authorization", "Bearer " + token));
+  }
+
+  private double hits() {
+    return meterRegistry.get("principal.cache.hits").functionCounter().count();
+  }
+
+  private double misses() {
+    return meterRegistry.get("principal.cache.misses").functionCounter().count();
+  }
+}
@@ -0,0 +1,128 @@
+package com.task.socialnetwork.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task.socialnetwork.dto.UserUpdateRequestDTO;
+import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.service.CustomUserDetailsService;
+import com.task.socialnetwork.service.TokenVersionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Runs the token checks with principals built from the claims and revocation going through
+ * the in-memory token version table.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+@TestPropertySource(properties = "jwt.stateless=true")
+class StatelessAuthIntegrationTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private TokenVersionRegistry tokenVersionRegistry;
+
+  // The only users table read on the request path when the registry has no answer
+  @SpyBean
+  private CustomUserDetailsService userDetailsService;
+
+  private ApiTestClient api;
+
+  @BeforeEach
+  void setUp() {
+    api = new ApiTestClient(mockMvc, objectMapper);
+  }
+
+  @Test
+  void testUserRegisteredAfterStartupIsKnownToRegistry() throws Exception {
+    api.registerAndLogin("latecomer", "latecomer@example.com");
+    Long userId = userRepository.findByUsername("latecomer").orElseThrow().getId();
+
+    assertThat(tokenVersionRegistry.currentVersion(userId)).isZero();
+  }
+
+  @Test
+  void testPrincipalIsBuiltFromClaimsWithoutLoadingUser() throws Exception {
+    String token = api.registerAndLogin("claimsOnly", "claimsonly@example.com");
+    clearInvocations(userDetailsService); // Login itself checks the password against the row
+
+    mockMvc.perform(get("/api/posts/timeline")
+            .header("Authorization", "Bearer " + token))
+        .andExpect(status().isOk());
+    verify(userDetailsService, never()).loadUserByUsername(anyString());
+  }
+
+  @Test
+  void testPasswordChangeRevokesIssuedTokens() throws Exception {
+    String oldToken = api.registerAndLogin("statelessRotating", "statelessrot@example.com");
+    Long userId = userRepository.findByUsername("statelessRotating").orElseThrow().getId();
+
+    UserUpdateRequestDTO updateRequest = new UserUpdateRequestDTO();
+    updateRequest.setUsername("statelessRotating");
+    updateRequest.setEmail("statelessrot@example.com");
+    updateRequest.setPassword("newPassword456");
+    mockMvc.perform(put("/api/user/" + userId)
+            .header("Authorization", "Bearer " + oldToken)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(updateRequest)))
+        .andExpect(status().isOk());
+    clearInvocations(userDetailsService);
+
+    // Rejected from the registry alone, the newer version is known locally
+    mockMvc.perform(get("/api/posts/timeline")
+            .header("Authorization", "Bearer " + oldToken))
+        .andExpect(status().isForbidden());
+    verify(userDetailsService, never()).loadUserByUsername(anyString());
+    String newToken = api.login("statelessRotating", "newPassword456");
+    mockMvc.perform(get("/api/posts/timeline")
+            .header("Authorization", "Bearer " + newToken))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void testDeletedUserTokensAreRejected() throws Exception {
+    String token = api.registerAndLogin("statelessDeleted", "statelessdel@example.com");
+    Long userId = userRepository.findByUsername("statelessDeleted").orElseThrow().getId();
+
+    mockMvc.perform(delete("/api/user/" + userId)
+            .header("Authorization", "Bearer " + token))
+        .andExpect(status().is2xxSuccessful());
+    clearInvocations(userDetailsService);
+
+    mockMvc.perform(get("/api/posts/timeline")
+            .header("Authorization", "Bearer " + token))
+        .andExpect(status().isForbidden());
+    assertThat(tokenVersionRegistry.currentVersion(userId))
+        .isEqualTo(TokenVersionRegistry.DELETED);
+    verify(userDetailsService, never()).loadUserByUsername(anyString());
+  }
+}
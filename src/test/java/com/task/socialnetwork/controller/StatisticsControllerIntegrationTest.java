@@ -1,13 +1,21 @@
 package com.task.socialnetwork.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.task.socialnetwork.dto.PostStatisticsDTO;
+import java.util.Comparator;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -26,6 +34,12 @@ class StatisticsControllerIntegrationTest extends AbstractIntegrationTest {
   @Autowired
   private MockMvc mockMvc;
 
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
   @Test
   @WithMockUser(username = "regularUser", roles = {"USER"})
   void testGetPopularPostsAsUser() throws Exception {
@@ -33,6 +47,28 @@ class StatisticsControllerIntegrationTest extends AbstractIntegrationTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  @WithMockUser(username = "regularUser", roles = {"USER"})
+  void testGetPopularPostsOrderedByLikes() throws Exception {
+    String response = mockMvc.perform(get("/api/statistics/popular-posts?limit=5"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    List<PostStatisticsDTO> posts = objectMapper.readValue(response,
+        new TypeReference<List<PostStatisticsDTO>>() {
+        });
+    assertThat(posts).hasSizeLessThanOrEqualTo(5);
+    assertThat(posts).extracting(PostStatisticsDTO::getLikeCount)
+        .isSortedAccordingTo(Comparator.reverseOrder());
+  }
+
+  @Test
+  @WithMockUser(username = "regularUser", roles = {"USER"})
+  void testGetPopularPostsWithInvalidLimit() throws Exception {
+    mockMvc.perform(get("/api/statistics/popular-posts?limit=0"))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   @WithMockUser(username = "adminUser", roles = {"ADMIN"})
   void testGetUserActivityAsAdmin() throws Exception {
@@ -41,6 +77,50 @@ class StatisticsControllerIntegrationTest extends AbstractIntegrationTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  @WithMockUser(username = "adminUser", roles = {"ADMIN"})
+  void testGetUserActivityReadsSummaryTable() throws Exception {
+    // Every counter of the summary row matches what the raw tables hold for the seeded admin
+    Long posts = jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM posts WHERE user_id = 100", Long.class);
+    Long likesReceived = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM post_likes l "
+        + "JOIN posts p ON p.id = l.post_id WHERE p.user_id = 100", Long.class);
+    Long likesGiven = jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM post_likes WHERE user_id = 100", Long.class);
+    Long comments = jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM comment WHERE user_id = 100", Long.class);
+    assertThat(posts).isPositive();
+    mockMvc.perform(get("/api/statistics/user-activity?userId=100"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.postCount").value(posts))
+        .andExpect(jsonPath("$.likeCount").value(likesReceived))
+        .andExpect(jsonPath("$.likesGiven").value(likesGiven))
+        .andExpect(jsonPath("$.commentCount").value(comments))
+        .andExpect(jsonPath("$.updatedAt").exists());
+  }
+
+  @Test
+  @WithMockUser(username = "adminUser", roles = {"ADMIN"})
+  void testGetUserActivitiesBatchAsAdmin() throws Exception {
+    // Unknown ids are skipped rather than failing the whole batch
+    mockMvc.perform(get("/api/statistics/user-activity/batch?userIds=100,999999"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].userId").value(100))
+        .andExpect(jsonPath("$[0].username").value("admin"));
+  }
+
+  @Test
+  @WithMockUser(username = "adminUser", roles = {"ADMIN"})
+  void testGetUserEngagementLimitsHourlySeriesToRetention() throws Exception {
+    // Hourly rows are kept for 30 days, daily ones cover the full range
+    mockMvc.perform(get("/api/statistics/users/100/engagement?granularity=HOUR&days=60"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/statistics/users/100/engagement?granularity=DAY&days=60"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(60));
+  }
+
   @Test
   @WithMockUser(username = "regularUser", roles = {"USER"})
   void testGetUserActivityAsNonAdmin() throws Exception {
@@ -1,6 +1,8 @@
 package com.task.socialnetwork.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -11,8 +13,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.task.socialnetwork.dto.AuthRequestDTO;
 import com.task.socialnetwork.dto.AuthResponseDTO;
+import com.task.socialnetwork.dto.RegistrationRequestDTO;
 import com.task.socialnetwork.dto.UserDTO;
 import com.task.socialnetwork.dto.UserUpdateRequestDTO;
+import com.task.socialnetwork.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -37,11 +41,16 @@ class UserControllerIntegrationTest extends AbstractIntegrationTest {
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private UserRepository userRepository;
+
+  private ApiTestClient api;
   private String authToken;
   private Long testUserId = 1L; // Adjust this ID based on your test data
 
   @BeforeEach
   void setUp() throws Exception {
+    api = new ApiTestClient(mockMvc, objectMapper);
     // Get a token for existingUser (ROLE_USER), assuming existingUser has ID = 1
     AuthRequestDTO loginRequest = new AuthRequestDTO();
     loginRequest.setUsername("admin");
@@ -98,4 +107,76 @@ class UserControllerIntegrationTest extends AbstractIntegrationTest {
     assertThat(updatedUser.getUsername()).isEqualTo("updatedName");
   }
 
+  @Test
+  void testPasswordChangeRevokesIssuedTokens() throws Exception {
+    RegistrationRequestDTO registrationRequest = new RegistrationRequestDTO();
+    registrationRequest.setUsername("rotatingUser");
+    registrationRequest.setEmail("rotating@example.com");
+    registrationRequest.setPassword("password123");
+    mockMvc.perform(post("/api/auth/register")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(registrationRequest)))
+        .andExpect(status().isOk());
+
+    AuthRequestDTO loginRequest = new AuthRequestDTO();
+    loginRequest.setUsername("rotatingUser");
+    loginRequest.setPassword("password123");
+    String response = mockMvc.perform(post("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(loginRequest)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    String oldToken = objectMapper.readValue(response, AuthResponseDTO.class).getToken();
+    Long userId = userRepository.findByUsername("rotatingUser").orElseThrow().getId();
+
+    UserUpdateRequestDTO updateRequest = new UserUpdateRequestDTO();
+    updateRequest.setUsername("rotatingUser");
+    updateRequest.setEmail("rotating@example.com");
+    updateRequest.setPassword("newPassword456");
+    mockMvc.perform(put("/api/user/" + userId)
+            .header("Authorization", "Bearer " + oldToken)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(updateRequest)))
+        .andExpect(status().isOk());
+
+    // The token issued before the password change no longer authenticates
+    mockMvc.perform(get("/api/user/" + userId)
+            .header("Authorization", "Bearer " + oldToken))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void testFollowAddsPostsToHomeTimeline() throws Exception {
+    String authorToken = api.registerAndLogin("followedAuthor", "followed@example.com");
+    Long authorId = userRepository.findByUsername("followedAuthor").orElseThrow().getId();
+    api.createPost(authorToken, "Written before the follow");
+
+    mockMvc.perform(post("/api/user/" + authorId + "/follow")
+            .header("Authorization", "Bearer " + authToken))
+        .andExpect(status().isNoContent());
+    api.createPost(authorToken, "Written after the follow");
+
+    // Earlier posts are backfilled on follow, new ones are fanned out on write
+    mockMvc.perform(get("/api/posts/timeline")
+            .header("Authorization", "Bearer " + authToken))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items[*].content").value(hasItem("Written before the follow")))
+        .andExpect(jsonPath("$.items[*].content").value(hasItem("Written after the follow")));
+
+    mockMvc.perform(delete("/api/user/" + authorId + "/follow")
+            .header("Authorization", "Bearer " + authToken))
+        .andExpect(status().isNoContent());
+    mockMvc.perform(get("/api/posts/timeline")
+            .header("Authorization", "Bearer " + authToken))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items[*].content")
+            .value(not(hasItem("Written after the follow"))));
+  }
+
+  @Test
+  void testFollowSelfIsRejected() throws Exception {
+    mockMvc.perform(post("/api/user/" + testUserId + "/follow")
+            .header("Authorization", "Bearer " + authToken))
+        .andExpect(status().isBadRequest());
+  }
 }
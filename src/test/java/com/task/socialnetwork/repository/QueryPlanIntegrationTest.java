@@ -0,0 +1,125 @@
+package com.task.socialnetwork.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.task.socialnetwork.controller.AbstractIntegrationTest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Checks that the hot queries can be answered from an index. The test tables are far too small
+ * for the planner to prefer an index on its own, so sequential scans are disabled for each
+ * EXPLAIN: a query that still gets the expected index has one it can use. Native queries are
+ * taken from the repository annotations, so a changed query is checked as it is.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryPlanIntegrationTest extends AbstractIntegrationTest {
+  private static final Pattern PARAMETER = Pattern.compile("(?<![:\\w]):(\\w+)");
+  private static final Map<String, String> PARAMETERS = Map.ofEntries(
+      Map.entry("userId", "100"),
+      Map.entry("followerId", "100"),
+      Map.entry("authorId", "100"),
+      Map.entry("postId", "1"),
+      Map.entry("postIds", "(1, 2, 3)"),
+      Map.entry("id", "1"),
+      Map.entry("createdAt", "TIMESTAMP '2100-01-01 00:00:00'"),
+      Map.entry("likeCount", "10"),
+      Map.entry("afterPostId", "0"),
+      Map.entry("afterUserId", "0"),
+      Map.entry("perPost", "3"),
+      Map.entry("userIds", "(100)"),
+      Map.entry("maxLength", "800"),
+      Map.entry("limit", "21"));
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void testPostQueriesUseIndexes() {
+    assertUsesIndex(nativeQuery(PostRepository.class, "findViewsByUserId"),
+        "idx_posts_user_created_at_id");
+    assertUsesIndex(nativeQuery(PostRepository.class, "backfillTimeline"),
+        "idx_posts_user_created_at_id");
+    assertUsesIndex(nativeQuery(PostRepository.class, "fanOutRecentPosts"),
+        "idx_posts_user_created_at_id");
+    assertUsesIndex("SELECT COUNT(*) FROM posts WHERE user_id = 100",
+        "idx_posts_user_created_at_id");
+    assertUsesIndex(nativeQuery(PostRepository.class, "findFeedByTimeBefore"),
+        "idx_posts_created_at_id");
+    assertUsesIndex(nativeQuery(PostRepository.class, "findFeedByPopularityBefore"),
+        "idx_posts_like_count_id");
+  }
+
+  @Test
+  void testCommentQueriesUseIndexes() {
+    assertUsesIndex(nativeQuery(CommentRepository.class, "findLatestByPostIds"),
+        "idx_comment_post_created_at_id");
+    // findThreadAfter as Hibernate renders it
+    assertUsesIndex("SELECT c.id FROM comment c JOIN users u ON u.id = c.user_id "
+            + "WHERE c.post_id = 1 AND (c.created_at > TIMESTAMP '2000-01-01 00:00:00' "
+            + "OR (c.created_at = TIMESTAMP '2000-01-01 00:00:00' AND c.id > 1)) "
+            + "ORDER BY c.created_at, c.id LIMIT 21",
+        "idx_comment_post_created_at_id");
+    assertUsesIndex("DELETE FROM comment WHERE post_id = 1", "idx_comment_post_created_at_id");
+    assertUsesIndex("SELECT COUNT(*) FROM comment WHERE user_id = 100", "idx_comment_user");
+    assertUsesIndex("DELETE FROM comment WHERE user_id = 100", "idx_comment_user");
+    assertUsesIndex(nativeQuery(PostRepository.class, "decrementCommentCountsCommentedBy"),
+        "idx_comment_user");
+  }
+
+  @Test
+  void testLikeQueriesUseIndexes() {
+    assertUsesIndex(nativeQuery(PostRepository.class, "findPostIdsLikedBy"),
+        "idx_post_likes_user_post");
+    assertUsesIndex(nativeQuery(PostRepository.class, "findPostIdsLikedAfter"),
+        "idx_post_likes_user_post");
+    assertUsesIndex(nativeQuery(PostRepository.class, "decrementLikeCountsLikedBy"),
+        "idx_post_likes_user_post");
+    assertUsesIndex("DELETE FROM post_likes WHERE user_id = 100", "idx_post_likes_user_post");
+    assertUsesIndex(nativeQuery(PostRepository.class, "findLikers"), "pk_post_likes");
+  }
+
+  @Test
+  void testTimelineTrimUsesPrimaryKey() {
+    assertUsesIndex(nativeQuery(PostRepository.class, "trimTimelines"), "pk_home_timeline");
+  }
+
+  private void assertUsesIndex(String sql, String indexName) {
+    String plan = new TransactionTemplate(transactionManager).execute(status -> {
+      jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+      return jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+    });
+    assertThat(plan).as(sql).contains("\"Index Name\": \"" + indexName + "\"");
+  }
+
+  private static String nativeQuery(Class<?> repository, String method) {
+    String sql = Arrays.stream(repository.getMethods())
+        .filter(candidate -> candidate.getName().equals(method))
+        .findFirst()
+        .orElseThrow()
+        .getAnnotation(Query.class)
+        .value();
+    Matcher matcher = PARAMETER.matcher(sql);
+    StringBuilder bound = new StringBuilder();
+    while (matcher.find()) {
+      String value = PARAMETERS.get(matcher.group(1));
+      assertThat(value).as("literal for :" + matcher.group(1)).isNotNull();
+      matcher.appendReplacement(bound, Matcher.quoteReplacement(value));
+    }
+    return matcher.appendTail(bound).toString();
+  }
+}
@@ -0,0 +1,103 @@
+package com.task.socialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.task.socialnetwork.controller.AbstractIntegrationTest;
+import com.task.socialnetwork.model.Comment;
+import com.task.socialnetwork.model.Post;
+import com.task.socialnetwork.model.User;
+import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.service.BulkInsertService.NewComment;
+import com.task.socialnetwork.service.BulkInsertService.NewPost;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares one insert round trip per row, which is what identity ids forced, with the batched
+ * bulk insert. Run with {@code ./gradlew benchmark}; the regular test task skips it.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkInsertBenchmarkTest extends AbstractIntegrationTest {
+  private static final int ROWS = 5_000;
+  private static final int ROUNDS = 3;
+  private static final Logger log = LoggerFactory.getLogger(BulkInsertBenchmarkTest.class);
+
+  @Autowired
+  private BulkInsertService bulkInsertService;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void benchmarkPostAndCommentInserts() {
+    Long userId = userRepository.findByUsername("admin").orElseThrow().getId();
+    Long postId = bulkInsertService.insertPosts(
+        List.of(new NewPost(userId, "Benchmark target", null))).get(0);
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+    for (int round = 1; round <= ROUNDS; round++) {
+      long rowByRowPosts = time(() -> transactionTemplate.executeWithoutResult(status -> {
+        for (int i = 0; i < ROWS; i++) {
+          Post post = new Post();
+          post.setContent("Row by row " + i);
+          post.setUser(entityManager.getReference(User.class, userId));
+          entityManager.persist(post);
+          entityManager.flush();
+        }
+        entityManager.clear();
+      }));
+      long bulkPosts = time(() -> bulkInsertService.insertPosts(IntStream.range(0, ROWS)
+          .mapToObj(i -> new NewPost(userId, "Bulk " + i, null)).toList()));
+
+      long rowByRowComments = time(() -> transactionTemplate.executeWithoutResult(status -> {
+        for (int i = 0; i < ROWS; i++) {
+          Comment comment = new Comment();
+          comment.setContent("Row by row " + i);
+          comment.setPost(entityManager.getReference(Post.class, postId));
+          comment.setUser(entityManager.getReference(User.class, userId));
+          entityManager.persist(comment);
+          entityManager.flush();
+        }
+        entityManager.clear();
+      }));
+      long bulkComments = time(() -> bulkInsertService.insertComments(IntStream.range(0, ROWS)
+          .mapToObj(i -> new NewComment(postId, userId, "Bulk " + i, null)).toList()));
+
+      log.info("Round {}, {} rows: posts {} ms row by row, {} ms bulk; "
+              + "comments {} ms row by row, {} ms bulk", round, ROWS, rowByRowPosts,
+          bulkPosts, rowByRowComments, bulkComments);
+    }
+
+    Long comments = jdbcTemplate.queryForObject(
+        "SELECT comment_count FROM posts WHERE id = ?", Long.class, postId);
+    assertThat(comments).isEqualTo((long) ROWS * ROUNDS);
+  }
+
+  private static long time(Runnable task) {
+    long start = System.nanoTime();
+    task.run();
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+}
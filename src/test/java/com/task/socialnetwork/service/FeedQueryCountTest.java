@@ -0,0 +1,73 @@
+package com.task.socialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.task.socialnetwork.controller.AbstractIntegrationTest;
+import com.task.socialnetwork.dto.CursorPageDTO;
+import com.task.socialnetwork.dto.PostResponseDTO;
+import com.task.socialnetwork.model.FilterType;
+import com.task.socialnetwork.model.User;
+import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.service.BulkInsertService.NewComment;
+import com.task.socialnetwork.service.BulkInsertService.NewPost;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+// Scheduled refreshes are pushed out so that only the feed's own statements are counted
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "jwt.token-version-refresh-interval=PT1H",
+    "engagement.flush-interval=PT1H"
+})
+@ActiveProfiles("test")
+class FeedQueryCountTest extends AbstractIntegrationTest {
+  private static final int PAGE_SIZE = 20;
+
+  @Autowired
+  private PostService postService;
+
+  @Autowired
+  private BulkInsertService bulkInsertService;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Test
+  void testFeedPageIssuesConstantNumberOfStatements() {
+    User admin = userRepository.findByUsername("admin").orElseThrow();
+    // Every post has an author, a comment and a like, the associations that used to be walked
+    List<Long> postIds = bulkInsertService.insertPosts(IntStream.range(0, PAGE_SIZE)
+        .mapToObj(i -> new NewPost(admin.getId(), "Counted " + i, null)).toList());
+    bulkInsertService.insertComments(postIds.stream()
+        .map(postId -> new NewComment(postId, admin.getId(), "Counted comment", null))
+        .toList());
+    postIds.forEach(postId -> postService.likePost(postId, admin));
+
+    // Warms up the viewer-state cache, which checks the viewer's activity once per TTL
+    postService.getNewsFeed(FilterType.TIME, null, PAGE_SIZE, admin.getId());
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    CursorPageDTO<PostResponseDTO> page =
+        postService.getNewsFeed(FilterType.TIME, null, PAGE_SIZE, admin.getId());
+
+    assertThat(page.getItems()).hasSize(PAGE_SIZE);
+    assertThat(page.getItems()).allSatisfy(post -> {
+      assertThat(post.getUser().getUsername()).isEqualTo("admin");
+      assertThat(post.getLatestComments()).hasSize(1);
+      assertThat(post.isLikedByMe()).isTrue();
+    });
+    // The page itself, the comment previews and the viewer's likes
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+  }
+}
@@ -0,0 +1,91 @@
+package com.task.socialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.task.socialnetwork.model.CustomUserDetails;
+import com.task.socialnetwork.model.Role;
+import com.task.socialnetwork.model.TokenClaims;
+import com.task.socialnetwork.model.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * The verified-token cache in front of the signature check.
+ */
+class JwtServiceTest {
+  private static final String SECRET =
+      "Q2F0aGVkcmtmdWRvb2Rrc2QxMjNqZmhsbGthc2tsamZrbGZhc2tmYWxsa2Fqc2Y=";
+
+  private final CustomUserDetails userDetails = new CustomUserDetails(User.builder()
+      .id(1L)
+      .username("cachedUser")
+      .role(Role.ROLE_USER)
+      .tokenVersion(0)
+      .build());
+
+  @Test
+  void testCachedTokenIsNotVerifiedAgain() {
+    JwtService jwtService = jwtService(3600000);
+    String token = jwtService.generateToken(userDetails);
+    TokenClaims claims = jwtService.parseToken(token);
+    assertThat(claims).isNotNull();
+
+    // A parser with another key rejects every signature, so only the cache can answer
+    ReflectionTestUtils.setField(jwtService, "parser", Jwts.parserBuilder()
+        .setSigningKey(Keys.secretKeyFor(SignatureAlgorithm.HS256)).build());
+    assertThat(jwtService.parseToken(token)).isSameAs(claims);
+    CustomUserDetails otherUser = new CustomUserDetails(User.builder()
+        .id(2L)
+        .username("otherUser")
+        .role(Role.ROLE_USER)
+        .tokenVersion(0)
+        .build());
+    assertThat(jwtService.parseToken(jwtService.generateToken(otherUser))).isNull();
+  }
+
+  @Test
+  void testCachedTokenIsRejectedOnceExpired() throws InterruptedException {
+    // Expiry has second precision, so the token expires one to two seconds from now
+    JwtService jwtService = jwtService(2000);
+    String token = jwtService.generateToken(userDetails);
+    TokenClaims claims = jwtService.parseToken(token);
+    assertThat(jwtService.validateToken(claims, userDetails)).isTrue();
+
+    while (!Instant.now().isAfter(claims.getExpiresAt())) {
+      Thread.sleep(50);
+    }
+    assertThat(jwtService.validateToken(claims, userDetails)).isFalse();
+    assertThat(jwtService.parseToken(token)).isNull();
+  }
+
+  @Test
+  void testTamperedTokenIsVerifiedDespiteCachedOriginal() {
+    JwtService jwtService = jwtService(3600000);
+    String token = jwtService.generateToken(userDetails);
+    assertThat(jwtService.parseToken(token)).isNotNull();
+
+    // Same signature over a different payload, so the token hashes to another cache key
+    String[] parts = token.split("\\.");
+    String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+        .replace("cachedUser", "otherUser");
+    String tampered = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+    assertThat(jwtService.parseToken(tampered)).isNull();
+    assertThat(jwtService.parseToken(token)).isNotNull();
+  }
+
+  private static JwtService jwtService(long expiration) {
+    JwtService jwtService = new JwtService();
+    ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+    ReflectionTestUtils.setField(jwtService, "expiration", expiration);
+    ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", 100);
+    jwtService.init();
+    return jwtService;
+  }
+}
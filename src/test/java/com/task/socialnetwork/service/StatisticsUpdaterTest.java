@@ -0,0 +1,135 @@
+package com.task.socialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.task.socialnetwork.controller.AbstractIntegrationTest;
+import com.task.socialnetwork.dto.AddCommentDTO;
+import com.task.socialnetwork.dto.RegistrationRequestDTO;
+import com.task.socialnetwork.model.User;
+import com.task.socialnetwork.model.UserStatistics;
+import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.repository.UserStatisticsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StatisticsUpdaterTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private PostService postService;
+
+  @Autowired
+  private AuthService authService;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private UserStatisticsRepository userStatisticsRepository;
+
+  @Autowired
+  private StatisticsReconciler statisticsReconciler;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private User author;
+  private User reader;
+  private Long postId;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // Fresh users per test, so no other test's activity shows up in their rows
+    long suffix = System.nanoTime();
+    author = register("statsAuthor" + suffix);
+    reader = register("statsReader" + suffix);
+    postId = postService.createPost("Counted post", null, author).getId();
+  }
+
+  @Test
+  void testLikeAndUnlikeMoveCountersByOne() {
+    UserStatistics authorBefore = statistics(author);
+    UserStatistics readerBefore = statistics(reader);
+
+    postService.likePost(postId, reader);
+    assertThat(statistics(author).getLikesReceived())
+        .isEqualTo(authorBefore.getLikesReceived() + 1);
+    assertThat(statistics(author).getLikesGiven()).isEqualTo(authorBefore.getLikesGiven());
+    assertThat(statistics(reader).getLikesGiven()).isEqualTo(readerBefore.getLikesGiven() + 1);
+    assertThat(statistics(reader).getLikesReceived()).isEqualTo(readerBefore.getLikesReceived());
+
+    // Toggling again removes the like and takes both counters back
+    postService.likePost(postId, reader);
+    assertThat(statistics(author).getLikesReceived()).isEqualTo(authorBefore.getLikesReceived());
+    assertThat(statistics(reader).getLikesGiven()).isEqualTo(readerBefore.getLikesGiven());
+  }
+
+  @Test
+  void testCommentCountsForTheCommenterOnly() {
+    UserStatistics authorBefore = statistics(author);
+    UserStatistics readerBefore = statistics(reader);
+
+    postService.addComment(postId, new AddCommentDTO("Counted comment"), reader);
+    assertThat(statistics(reader).getCommentCount())
+        .isEqualTo(readerBefore.getCommentCount() + 1);
+    assertThat(statistics(author).getCommentCount()).isEqualTo(authorBefore.getCommentCount());
+    assertThat(statistics(author).getPostCount()).isEqualTo(authorBefore.getPostCount());
+  }
+
+  @Test
+  void testReconcileRepairsDriftedRows() {
+    postService.likePost(postId, reader);
+    postService.addComment(postId, new AddCommentDTO("Counted comment"), reader);
+    UserStatistics authorExpected = statistics(author);
+    UserStatistics readerExpected = statistics(reader);
+    assertThat(authorExpected.getPostCount()).isEqualTo(1);
+    assertThat(authorExpected.getLikesReceived()).isEqualTo(1);
+    assertThat(readerExpected.getLikesGiven()).isEqualTo(1);
+    assertThat(readerExpected.getCommentCount()).isEqualTo(1);
+
+    // Writes that bypass the event path, as manual SQL would
+    transactionTemplate.executeWithoutResult(status -> {
+      jdbcTemplate.update("UPDATE posts SET like_count = 7 WHERE id = ?", postId);
+      jdbcTemplate.update("UPDATE user_statistics SET post_count = 5, likes_received = 0 "
+          + "WHERE user_id = ?", author.getId());
+      jdbcTemplate.update("DELETE FROM user_statistics WHERE user_id = ?", reader.getId());
+    });
+
+    statisticsReconciler.reconcile();
+    assertCounters(statistics(author), authorExpected);
+    assertCounters(statistics(reader), readerExpected);
+    assertThat(jdbcTemplate.queryForObject("SELECT like_count FROM posts WHERE id = ?",
+        Long.class, postId)).isEqualTo(1);
+  }
+
+  private void assertCounters(UserStatistics actual, UserStatistics expected) {
+    assertThat(actual)
+        .extracting(UserStatistics::getPostCount, UserStatistics::getLikesReceived,
+            UserStatistics::getLikesGiven, UserStatistics::getCommentCount)
+        .containsExactly(expected.getPostCount(), expected.getLikesReceived(),
+            expected.getLikesGiven(), expected.getCommentCount());
+  }
+
+  // Users without recorded activity have no row yet, which reads as all zeros
+  private UserStatistics statistics(User user) {
+    return userStatisticsRepository.findById(user.getId()).orElseGet(UserStatistics::new);
+  }
+
+  private User register(String username) {
+    RegistrationRequestDTO registrationRequest = new RegistrationRequestDTO();
+    registrationRequest.setUsername(username);
+    registrationRequest.setEmail(username + "@example.com");
+    registrationRequest.setPassword("password123");
+    authService.registerUser(registrationRequest);
+    return userRepository.findByUsername(username).orElseThrow();
+  }
+}
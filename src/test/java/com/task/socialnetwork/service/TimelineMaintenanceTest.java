@@ -0,0 +1,62 @@
+package com.task.socialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.task.socialnetwork.controller.AbstractIntegrationTest;
+import com.task.socialnetwork.dto.RegistrationRequestDTO;
+import com.task.socialnetwork.repository.PostRepository;
+import com.task.socialnetwork.repository.UserRepository;
+import com.task.socialnetwork.service.BulkInsertService.NewPost;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TimelineMaintenanceTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private AuthService authService;
+
+  @Autowired
+  private BulkInsertService bulkInsertService;
+
+  @Autowired
+  private PostRepository postRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Test
+  void testTrimKeepsNewestEntriesOfEachOwner() {
+    RegistrationRequestDTO registrationRequest = new RegistrationRequestDTO();
+    registrationRequest.setUsername("prolificAuthor");
+    registrationRequest.setEmail("prolific@example.com");
+    registrationRequest.setPassword("password123");
+    authService.registerUser(registrationRequest);
+    Long ownerId = userRepository.findByUsername("prolificAuthor").orElseThrow().getId();
+    LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+    List<Long> postIds = bulkInsertService.insertPosts(IntStream.range(0, 5)
+        .mapToObj(i -> new NewPost(ownerId, "Post " + i, start.plusMinutes(i))).toList());
+
+    int trimmed = transactionTemplate.execute(
+        status -> postRepository.trimTimelines(List.of(ownerId), 3));
+
+    assertThat(trimmed).isEqualTo(2);
+    assertThat(jdbcTemplate.queryForList("SELECT post_id FROM home_timeline WHERE user_id = ? "
+        + "ORDER BY created_at DESC, post_id DESC", Long.class, ownerId))
+        .containsExactly(postIds.get(4), postIds.get(3), postIds.get(2));
+  }
+}
@@ -0,0 +1,104 @@
+package com.task.socialnetwork.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+import com.task.socialnetwork.controller.AbstractIntegrationTest;
+import com.task.socialnetwork.dto.RegistrationRequestDTO;
+import com.task.socialnetwork.model.Post;
+import com.task.socialnetwork.model.User;
+import com.task.socialnetwork.repository.PostRepository;
+import com.task.socialnetwork.repository.UserRepository;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+// Every viewer with a like gets a bitmap here, so both lookup paths are exercised
+@SpringBootTest(properties = "likes.viewer-state.bitmap-min-likes=1")
+@ActiveProfiles("test")
+class ViewerStateResolverTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private ViewerStateResolver viewerStateResolver;
+
+  @Autowired
+  private PostService postService;
+
+  @Autowired
+  private AuthService authService;
+
+  @SpyBean
+  private PostRepository postRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Test
+  void testBitmapFollowsLikesToggledAfterLoading() {
+    User admin = userRepository.findByUsername("admin").orElseThrow();
+    Post liked = createPost(admin, "Liked before the bitmap is loaded");
+    Post toggledLater = createPost(admin, "Liked after the bitmap is loaded");
+    postService.likePost(liked.getId(), admin);
+
+    List<Long> page = List.of(liked.getId(), toggledLater.getId());
+    assertThat(viewerStateResolver.likedPostIds(admin.getId(), page))
+        .containsExactly(liked.getId());
+
+    postService.likePost(toggledLater.getId(), admin);
+    postService.likePost(liked.getId(), admin);
+    assertThat(viewerStateResolver.likedPostIds(admin.getId(), page))
+        .containsExactly(toggledLater.getId());
+  }
+
+  @Test
+  void testLikeCommittedDuringLoadIsNotLost() {
+    User admin = userRepository.findByUsername("admin").orElseThrow();
+    User viewer = register("viewerStateRacer");
+    Post likedEarlier = createPost(admin, "Liked before the load");
+    Post likedDuringLoad = createPost(admin, "Liked while the bitmap is loading");
+    postService.likePost(likedEarlier.getId(), viewer);
+
+    // The like commits after the bitmap query has read post_likes, before the bitmap is cached
+    AtomicBoolean raced = new AtomicBoolean();
+    doAnswer(invocation -> {
+      Object likes = invocation.callRealMethod();
+      if (raced.compareAndSet(false, true)) {
+        postService.likePost(likedDuringLoad.getId(), viewer);
+      }
+      return likes;
+    }).when(postRepository).findPostIdsLikedAfter(eq(viewer.getId()), anyLong());
+
+    List<Long> page = List.of(likedEarlier.getId(), likedDuringLoad.getId());
+    viewerStateResolver.likedPostIds(viewer.getId(), page);
+    assertThat(raced).isTrue();
+    assertThat(viewerStateResolver.likedPostIds(viewer.getId(), page))
+        .containsExactlyInAnyOrder(likedEarlier.getId(), likedDuringLoad.getId());
+  }
+
+  @Test
+  void testNoViewerLikesNothing() {
+    assertThat(viewerStateResolver.likedPostIds(null, List.of(1L, 2L))).isEmpty();
+  }
+
+  private Post createPost(User author, String content) {
+    Post post = new Post();
+    post.setContent(content);
+    post.setUser(author);
+    return postRepository.save(post);
+  }
+
+  private User register(String username) {
+    RegistrationRequestDTO registrationRequest = new RegistrationRequestDTO();
+    registrationRequest.setUsername(username);
+    registrationRequest.setEmail(username + "@example.com");
+    registrationRequest.setPassword("password123");
+    authService.registerUser(registrationRequest);
+    return userRepository.findByUsername(username).orElseThrow();
+  }
+}